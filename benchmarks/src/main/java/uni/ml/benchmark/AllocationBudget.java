@@ -0,0 +1,178 @@
+package uni.ml.benchmark;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.Callable;
+
+import com.sun.management.ThreadMXBean;
+
+import uni.ml.dataset.Dataset;
+import uni.ml.dataset.DatasetFile;
+import uni.ml.dataset.EnumAttribute;
+import uni.ml.learning.Boosting;
+import uni.ml.learning.DecisionTreeModel;
+import uni.ml.learning.Measures;
+import uni.ml.learning.SyntheticDataset;
+
+/**
+ * Measures the bytes allocated by the key operations on a fixed synthetic dataset and compares them to recorded budgets,
+ * so allocation regressions of the hot paths are detected. Each operation runs on the calling thread, its allocation is 
+ * measured with the per-thread allocation counter of the JVM (the minimum over several runs after a warm up).
+ * <p>
+ * Usage: java -cp target/benchmarks.jar uni.ml.benchmark.AllocationBudget [--record path_to_budgets_file]
+ * <p>
+ * Without arguments the budgets are read from the resource {@value #BUDGETS} and the exit status is 1 if an operation 
+ * allocates more than its budget (plus {@link #TOLERANCE}). With --record the measured allocations are written 
+ * to the specified file instead, e.g. src/main/resources/allocation-budgets.properties after an intended change.
+ * @author Julian Brummer
+ *
+ */
+public class AllocationBudget {
+	
+	public static final String BUDGETS = "/allocation-budgets.properties";
+	/** The relative allocation above the budget that is still accepted. */
+	public static final double TOLERANCE = 0.05;
+	
+	public static final int NUM_INSTANCES = 10000;
+	public static final int NUM_ATTRIBUTES = 8;
+	public static final int MAX_DEPTH = 6;
+	public static final int NUM_ITERATIONS = 10;
+	
+	private static final int WARMUP_RUNS = 10;
+	private static final int MEASURED_RUNS = 5;
+	
+	/** Keeps the results of the operations reachable. */
+	private static volatile Object sink;
+	
+	private static final ThreadMXBean threads = threadMXBean();
+	
+	private static ThreadMXBean threadMXBean() {
+		java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		if (!(bean instanceof ThreadMXBean) || !((ThreadMXBean) bean).isThreadAllocatedMemorySupported())
+			throw new IllegalStateException("The JVM does not support measuring the allocated memory per thread");
+		((ThreadMXBean) bean).setThreadAllocatedMemoryEnabled(true);
+		return (ThreadMXBean) bean;
+	}
+	
+	/**
+	 * @return The minimum number of bytes allocated by a run of the operation on the calling thread.
+	 */
+	private static long measure(Callable<?> operation) throws Exception {
+		long threadId = Thread.currentThread().getId();
+		for (int i = 0; i < WARMUP_RUNS; i++) {
+			sink = operation.call();
+		}
+		long min = Long.MAX_VALUE;
+		for (int i = 0; i < MEASURED_RUNS; i++) {
+			long before = threads.getThreadAllocatedBytes(threadId);
+			sink = operation.call();
+			min = Math.min(min, threads.getThreadAllocatedBytes(threadId) - before);
+		}
+		return min;
+	}
+	
+	/**
+	 * Creates the measured operations in a fixed order.
+	 * @param arffFile Receives the dataset as an ARFF file.
+	 * @param binaryFile Receives the dataset as a binary dataset file.
+	 */
+	private static Map<String, Callable<?>> operations(File arffFile, File binaryFile) throws IOException {
+		SyntheticDataset generator = BenchmarkData.generator(NUM_ATTRIBUTES, 42);
+		generator.writeArff(arffFile, NUM_INSTANCES, 42);
+		generator.writeBinary(binaryFile, NUM_INSTANCES, 42);
+		Dataset dataset = generator.generate(NUM_INSTANCES, 42);
+		EnumAttribute<?> classAttribute = dataset.lastAttribute();
+		EnumAttribute<?> splitAttribute = dataset.attributeAt(0);
+		DecisionTreeModel model = new DecisionTreeModel(MAX_DEPTH);
+		model.trainModel(dataset, classAttribute);
+		
+		Map<String, Callable<?>> operations = new LinkedHashMap<>();
+		operations.put("loadArff", () -> {
+			Dataset loaded = new Dataset();
+			loaded.loadFromFile(arffFile);
+			return loaded;
+		});
+		operations.put("loadBinary", () -> DatasetFile.load(binaryFile));
+		operations.put("informationGain", () -> Measures.informationGain(Measures.classCounts(dataset, classAttribute, splitAttribute)));
+		operations.put("trainModel", () -> {
+			DecisionTreeModel tree = new DecisionTreeModel(MAX_DEPTH);
+			tree.trainModel(dataset, classAttribute);
+			return tree;
+		});
+		operations.put("classifyAll", () -> model.classifier().classifyAll(dataset, classAttribute));
+		operations.put("boosting", () -> Boosting.modelGeneration(dataset, NUM_ITERATIONS, classAttribute, 3, true, 42));
+		return operations;
+	}
+	
+	private static Properties loadBudgets() throws IOException {
+		Properties budgets = new Properties();
+		try (InputStream in = AllocationBudget.class.getResourceAsStream(BUDGETS)) {
+			if (in == null)
+				throw new IOException("Missing resource " + BUDGETS);
+			budgets.load(in);
+		}
+		return budgets;
+	}
+	
+	private static void saveBudgets(Map<String, Long> allocations, File file) throws IOException {
+		try (Writer writer = new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.ISO_8859_1)) {
+			writer.write("# bytes allocated per operation, recorded by uni.ml.benchmark.AllocationBudget --record\n");
+			for (Map.Entry<String, Long> allocation : allocations.entrySet()) {
+				writer.write(allocation.getKey() + "=" + allocation.getValue() + "\n");
+			}
+		}
+	}
+	
+	public static void main(String[] args) throws Exception {
+		File recordFile = args.length >= 2 && args[0].equals("--record")? new File(args[1]) : null;
+		File arffFile = File.createTempFile("allocation", ".arff");
+		File binaryFile = File.createTempFile("allocation", ".bin");
+		Map<String, Long> allocations = new LinkedHashMap<>();
+		try {
+			for (Map.Entry<String, Callable<?>> operation : operations(arffFile, binaryFile).entrySet()) {
+				allocations.put(operation.getKey(), measure(operation.getValue()));
+			}
+		} finally {
+			arffFile.delete();
+			binaryFile.delete();
+		}
+		
+		if (recordFile != null) {
+			saveBudgets(allocations, recordFile);
+			allocations.forEach((name, bytes) -> System.out.printf("%-16s %14d bytes%n", name, bytes));
+			System.out.println("Recorded budgets to " + recordFile);
+			return;
+		}
+		
+		Properties budgets = loadBudgets();
+		boolean exceeded = false;
+		System.out.printf("%-16s %14s %14s%n", "operation", "allocated", "budget");
+		for (Map.Entry<String, Long> allocation : allocations.entrySet()) {
+			String budget = budgets.getProperty(allocation.getKey());
+			String status;
+			if (budget == null) {
+				status = "NO BUDGET";
+			} else if (allocation.getValue() > Long.parseLong(budget.trim()) * (1.0 + TOLERANCE)) {
+				status = "EXCEEDED";
+				exceeded = true;
+			} else {
+				status = "OK";
+			}
+			System.out.printf("%-16s %14d %14s  %s%n", allocation.getKey(), allocation.getValue(), budget == null? "-" : budget.trim(), status);
+		}
+		if (exceeded) {
+			System.out.println("Allocation budget exceeded");
+			System.exit(1);
+		}
+	}
+
+}
@@ -0,0 +1,49 @@
+package uni.ml.benchmark;
+
+import java.util.Arrays;
+
+import uni.ml.dataset.Dataset;
+import uni.ml.learning.SyntheticDataset;
+
+/**
+ * Creates reproducible synthetic datasets for the benchmarks.
+ * @author Julian Brummer
+ *
+ */
+public class BenchmarkData {
+	
+	/** The number of values of each (non-class) attribute. */
+	public static final int NUM_VALUES = 4;
+	/** The number of class values. */
+	public static final int NUM_CLASSES = 3;
+	/** The depth of the planted decision tree. */
+	public static final int TREE_DEPTH = 4;
+	/** The probability of a random class value instead of the one determined by the planted tree. */
+	public static final double NOISE = 0.1;
+	
+	/**
+	 * Creates a generator with uniformly distributed attribute values and balanced class values (up to noise).
+	 * @param numAttributes The number of attributes excluding the class attribute (at least {@link #TREE_DEPTH}).
+	 * @param seed The seed of the planted tree.
+	 */
+	public static SyntheticDataset generator(int numAttributes, long seed) {
+		int[] cardinalities = new int[numAttributes];
+		Arrays.fill(cardinalities, NUM_VALUES);
+		double[] classPrior = new double[NUM_CLASSES];
+		Arrays.fill(classPrior, 1.0);
+		return new SyntheticDataset(cardinalities, classPrior, TREE_DEPTH, seed)
+				.noise(NOISE)
+				.name("synthetic-" + numAttributes);
+	}
+	
+	/**
+	 * Creates a dataset, the class attribute is the last attribute.
+	 * @param numInstances The number of instances.
+	 * @param numAttributes The number of attributes excluding the class attribute (at least {@link #TREE_DEPTH}).
+	 * @param seed The seed, the same parameters always yield the same dataset.
+	 */
+	public static Dataset generate(int numInstances, int numAttributes, long seed) {
+		return generator(numAttributes, seed).generate(numInstances, seed);
+	}
+	
+}
@@ -0,0 +1,90 @@
+package uni.ml.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import uni.ml.dataset.Dataset;
+import uni.ml.dataset.DatasetFile;
+import uni.ml.dataset.Sampling;
+import uni.ml.learning.SyntheticDataset;
+
+/**
+ * Benchmarks loading and sampling datasets.
+ * @author Julian Brummer
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DatasetBenchmark {
+
+	@Param({"10000", "100000"})
+	private int numInstances;
+	@Param({"8", "32"})
+	private int numAttributes;
+	
+	private File arffFile, binaryFile;
+	private double[] cumulativeWeights;
+	private SplittableRandom random;
+	
+	@Setup(Level.Trial)
+	public void setup() throws IOException {
+		SyntheticDataset generator = BenchmarkData.generator(numAttributes, 42);
+		arffFile = File.createTempFile("benchmark", ".arff");
+		generator.writeArff(arffFile, numInstances, 42);
+		binaryFile = File.createTempFile("benchmark", ".bin");
+		generator.writeBinary(binaryFile, numInstances, 42);
+		
+		SplittableRandom weights = new SplittableRandom(42);
+		cumulativeWeights = new double[numInstances];
+		double sum = 0.0;
+		for (int i = 0; i < numInstances; i++) {
+			sum += weights.nextDouble();
+			cumulativeWeights[i] = sum;
+		}
+		random = new SplittableRandom(42);
+	}
+	
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		arffFile.delete();
+		binaryFile.delete();
+	}
+	
+	@Benchmark
+	public Dataset loadFromFile() throws IOException {
+		Dataset dataset = new Dataset();
+		dataset.loadFromFile(arffFile);
+		return dataset;
+	}
+	
+	@Benchmark
+	public Dataset loadFromBinaryFile() throws IOException {
+		return DatasetFile.load(binaryFile);
+	}
+	
+	@Benchmark
+	public int[] weightedBootstrap() {
+		return Sampling.weightedBootstrap(cumulativeWeights, random);
+	}
+	
+}
@@ -0,0 +1,93 @@
+package uni.ml.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import uni.ml.dataset.Dataset;
+import uni.ml.dataset.EnumAttribute;
+import uni.ml.exercise.Exercise04Task03;
+import uni.ml.learning.Boosting;
+import uni.ml.learning.ClassificationResult;
+import uni.ml.learning.DecisionTreeModel;
+import uni.ml.learning.Measures;
+
+/**
+ * Benchmarks measures, training, classification and evaluation of decision trees.
+ * @author Julian Brummer
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LearningBenchmark {
+
+	@Param({"10000", "100000"})
+	private int numInstances;
+	@Param({"8", "32"})
+	private int numAttributes;
+	@Param({"6"})
+	private int maxDepth;
+	
+	private Dataset dataset;
+	private EnumAttribute<?> classAttribute;
+	private EnumAttribute<?> splitAttribute;
+	private DecisionTreeModel model;
+	
+	@Setup(Level.Trial)
+	public void setup() {
+		dataset = BenchmarkData.generate(numInstances, numAttributes, 42);
+		classAttribute = dataset.lastAttribute();
+		splitAttribute = dataset.attributeAt(0);
+		model = new DecisionTreeModel(maxDepth);
+		model.trainModel(dataset, classAttribute);
+	}
+	
+	@Benchmark
+	public float entropy() {
+		return Measures.entropy(Measures.classCounts(dataset, classAttribute));
+	}
+	
+	@Benchmark
+	public float informationGain() {
+		return Measures.informationGain(Measures.classCounts(dataset, classAttribute, splitAttribute));
+	}
+	
+	@Benchmark
+	public DecisionTreeModel trainModel() {
+		DecisionTreeModel tree = new DecisionTreeModel(maxDepth);
+		tree.trainModel(dataset, classAttribute);
+		return tree;
+	}
+	
+	@Benchmark
+	public int[] classifyAll() {
+		return model.classifier().classifyAll(dataset, classAttribute);
+	}
+	
+	@Benchmark
+	public List<DecisionTreeModel> boosting() {
+		return Boosting.modelGeneration(dataset, 10, classAttribute, 3, true, 42);
+	}
+	
+	@Benchmark
+	public ClassificationResult stratifiedCrossValidation() {
+		return Exercise04Task03.stratifiedCrossValidation(dataset, classAttribute, new DecisionTreeModel(maxDepth), 10, null);
+	}
+	
+}
@@ -0,0 +1,352 @@
+package uni.ml.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+import uni.ml.dataset.Dataset;
+import uni.ml.dataset.DatasetFile;
+import uni.ml.dataset.EnumAttribute;
+import uni.ml.dataset.Instance;
+import uni.ml.dataset.Sampling;
+import uni.ml.dataset.view.DatasetMultiplicityView;
+import uni.ml.dataset.view.DatasetView;
+import uni.ml.learning.Boosting;
+import uni.ml.learning.BoostingForestModel;
+import uni.ml.learning.CompiledModel;
+import uni.ml.learning.ConfusionMatrix;
+import uni.ml.learning.DecisionTreeModel;
+import uni.ml.learning.Measures;
+import uni.ml.learning.ModelFile;
+import uni.ml.tree.NodeArray;
+import uni.ml.util.Permutation;
+
+/**
+ * Runs checks for edge cases that once broke, so they do not silently come back.
+ * <p>
+ * Usage: java -cp target/benchmarks.jar uni.ml.benchmark.RegressionCheck
+ * <p>
+ * The exit status is 1 if a check fails.
+ * @author Julian Brummer
+ *
+ */
+public class RegressionCheck {
+	
+	/**
+	 * A check that throws an exception (or error) if it fails.
+	 */
+	private interface Check {
+		void run() throws Exception;
+	}
+	
+	private static void check(boolean condition, String message) {
+		if (!condition)
+			throw new AssertionError(message);
+	}
+	
+	private static Map<String, Check> checks() {
+		Map<String, Check> checks = new LinkedHashMap<>();
+		checks.put("weightedBootstrapCountsBeyondShort", RegressionCheck::weightedBootstrapCountsBeyondShort);
+		checks.put("boostingSingleMisclassifiedInstance", RegressionCheck::boostingSingleMisclassifiedInstance);
+		checks.put("nonPositiveVoteWeights", RegressionCheck::nonPositiveVoteWeights);
+		checks.put("boostingEmptyDataset", RegressionCheck::boostingEmptyDataset);
+		checks.put("permutationBeyondIntDomain", RegressionCheck::permutationBeyondIntDomain);
+		checks.put("corruptModelFile", RegressionCheck::corruptModelFile);
+		checks.put("classCountsBeyondFloatPrecision", RegressionCheck::classCountsBeyondFloatPrecision);
+		checks.put("confusionMatrixBeyondFloatPrecision", RegressionCheck::confusionMatrixBeyondFloatPrecision);
+		checks.put("corruptDatasetFile", RegressionCheck::corruptDatasetFile);
+		return checks;
+	}
+	
+	/**
+	 * An index drawn more than Short.MAX_VALUE times must be counted exactly.
+	 */
+	private static void weightedBootstrapCountsBeyondShort() {
+		int n = 70000;
+		double[] cumulativeWeights = new double[n];
+		cumulativeWeights[0] = n; // index 0 carries half of the weight
+		for (int i = 1; i < n; i++) {
+			cumulativeWeights[i] = cumulativeWeights[i-1] + 1.0;
+		}
+		Sampling.Counts counts = Sampling.weightedBootstrapCounts(cumulativeWeights, n, new SplittableRandom(1));
+		long sum = 0;
+		for (int i = 0; i < n; i++) {
+			sum += counts.get(i);
+		}
+		check(counts.get(0) > Short.MAX_VALUE, "Index 0 drawn only " + counts.get(0) + " times");
+		check(sum == n, "The counts sum up to " + sum + " instead of " + n);
+	}
+	
+	/**
+	 * Boosting puts half of the weight on a single misclassified instance, 
+	 * so the next bootstrap sample draws it about n/2 times.
+	 */
+	private static void boostingSingleMisclassifiedInstance() {
+		EnumAttribute<String> attribute = new EnumAttribute<>("a", "x", "y");
+		EnumAttribute<String> classAttribute = new EnumAttribute<>("class", "p", "n");
+		Dataset dataset = new Dataset(attribute, classAttribute);
+		for (int i = 0; i < 70000; i++) {
+			Instance instance = new Instance();
+			instance.addUnchecked(attribute, attribute.value(0));
+			instance.addUnchecked(classAttribute, classAttribute.value(i == 0? 1 : 0));
+			dataset.addInstance(instance);
+		}
+		for (long seed = 1; seed <= 5; seed++) {
+			List<DecisionTreeModel> models = Boosting.modelGeneration(dataset, 5, classAttribute, 3, true, seed);
+			check(!models.isEmpty(), "No valid model for seed " + seed);
+		}
+	}
+	
+	/**
+	 * The early exit of the ensemble vote requires positive vote weights, 
+	 * so forests and compiled models must reject all others.
+	 */
+	private static void nonPositiveVoteWeights() {
+		EnumAttribute<String> attribute = new EnumAttribute<>("a", "x", "y");
+		EnumAttribute<String> classAttribute = new EnumAttribute<>("class", "p", "n");
+		Dataset dataset = new Dataset(attribute, classAttribute);
+		Dataset inverted = new Dataset(attribute, classAttribute);
+		for (int i = 0; i < 4; i++) {
+			Instance instance = new Instance();
+			instance.addUnchecked(attribute, attribute.value(i % 2));
+			instance.addUnchecked(classAttribute, classAttribute.value(i % 2));
+			dataset.addInstance(instance);
+			Instance invertedInstance = new Instance();
+			invertedInstance.addUnchecked(attribute, attribute.value(i % 2));
+			invertedInstance.addUnchecked(classAttribute, classAttribute.value(1 - i % 2));
+			inverted.addInstance(invertedInstance);
+		}
+		DecisionTreeModel tree = new DecisionTreeModel(1);
+		tree.trainModel(dataset, classAttribute);
+		tree.testModel(inverted, classAttribute); // error 1, so the vote weight is negative
+		BoostingForestModel forest = new BoostingForestModel(1, 1);
+		try {
+			forest.add(tree);
+			check(false, "A tree with error " + tree.error() + " was added to the forest");
+		} catch (IllegalArgumentException e) {
+			check(forest.numModels() == 0, "The forest was modified by a rejected tree");
+		}
+		
+		NodeArray.Builder builder = new NodeArray.Builder(Arrays.asList(attribute, classAttribute), classAttribute);
+		int root = builder.add(tree.root());
+		NodeArray nodes = builder.build();
+		for (float weight : new float[] {0.0f, -1.0f, Float.NaN}) {
+			try {
+				new CompiledModel(nodes, classAttribute, new int[] {root, root}, new float[] {1.0f, weight});
+				check(false, "A compiled model accepted the vote weight " + weight);
+			} catch (IllegalArgumentException e) {
+				// expected
+			}
+		}
+	}
+	
+	/**
+	 * Testing on no instances yields a NaN error, such rounds must abort instead of adding a tree with a NaN vote weight.
+	 */
+	private static void boostingEmptyDataset() {
+		EnumAttribute<String> attribute = new EnumAttribute<>("a", "x", "y");
+		EnumAttribute<String> classAttribute = new EnumAttribute<>("class", "p", "n");
+		Dataset dataset = new Dataset(attribute, classAttribute);
+		for (boolean resample : new boolean[] {true, false}) {
+			BoostingForestModel forest = new BoostingForestModel(5, 2).resample(resample);
+			forest.trainModel(dataset, classAttribute);
+			check(!forest.hasModels(), "The forest contains " + forest.numModels() + " trees");
+		}
+	}
+	
+	/**
+	 * For sizes above 2^30 the Feistel domain exceeds the int range, the permuted indices must stay within [0,size).
+	 */
+	private static void permutationBeyondIntDomain() {
+		for (int size : new int[] {(1 << 30) + 1, Integer.MAX_VALUE}) {
+			Permutation permutation = new Permutation(size, 1);
+			Set<Integer> permuted = new HashSet<>();
+			for (int i = 0; i < 10000; i++) {
+				int index = permutation.index(size - 1 - i);
+				check(index >= 0 && index < size, "Index " + index + " is not within [0," + size + ")");
+				check(permuted.add(index), "Index " + index + " is permuted twice");
+			}
+		}
+	}
+	
+	/**
+	 * Loading a model file with corrupt indices or pointers must fail with an IOException naming the file, 
+	 * instead of reading out of bounds or looping forever while classifying.
+	 */
+	private static void corruptModelFile() throws IOException {
+		EnumAttribute<String> a = new EnumAttribute<>("a", "x", "y");
+		EnumAttribute<String> b = new EnumAttribute<>("b", "x", "y");
+		EnumAttribute<String> classAttribute = new EnumAttribute<>("class", "p", "n");
+		Dataset dataset = new Dataset(a, b, classAttribute);
+		for (int i = 0; i < 8; i++) {
+			Instance instance = new Instance();
+			instance.addUnchecked(a, a.value(i % 2));
+			instance.addUnchecked(b, b.value(i / 2 % 2));
+			instance.addUnchecked(classAttribute, classAttribute.value(i % 2 ^ i / 2 % 2)); // xor, requires a tree of depth 3
+			dataset.addInstance(instance);
+		}
+		DecisionTreeModel tree = new DecisionTreeModel(3);
+		tree.trainModel(dataset, classAttribute);
+		CompiledModel model = CompiledModel.compile(tree, dataset, classAttribute);
+		
+		File file = File.createTempFile("model", ".mlmf");
+		file.deleteOnExit();
+		ModelFile.save(model, file);
+		byte[] bytes = Files.readAllBytes(file.toPath());
+		ModelFile.load(file); // the valid file loads
+		
+		// offsets of the fields following the attribute dictionary
+		int classAttributeOffset = 12;
+		for (EnumAttribute<?> attribute : model.nodes().attributes()) {
+			classAttributeOffset += 8 + attribute.name().getBytes(StandardCharsets.UTF_8).length;
+			for (int j = 0; j < attribute.numValues(); j++) {
+				classAttributeOffset += 4 + attribute.value(j).arffString().getBytes(StandardCharsets.UTF_8).length;
+			}
+		}
+		int rootOffset = classAttributeOffset + 12;
+		int nodesOffset = bytes.length - 4 * model.nodes().size();
+		int root = model.root(0);
+		check(ByteBuffer.wrap(bytes).getInt(rootOffset) == root, "Unexpected layout of the model file");
+		
+		Map<String, byte[]> corruptFiles = new LinkedHashMap<>();
+		corruptFiles.put("class attribute index", withInt(bytes, classAttributeOffset, 3));
+		corruptFiles.put("root pointer", withInt(bytes, rootOffset, root + 1));
+		corruptFiles.put("leaf ordinal", withInt(bytes, rootOffset, NodeArray.leaf(2)));
+		corruptFiles.put("cyclic child pointer", withInt(bytes, nodesOffset + 4 * (root + 1), root));
+		corruptFiles.put("attribute index", withInt(bytes, nodesOffset + 4 * root, 3));
+		corruptFiles.put("truncated", Arrays.copyOf(bytes, classAttributeOffset + 2));
+		for (Map.Entry<String, byte[]> corruptFile : corruptFiles.entrySet()) {
+			Files.write(file.toPath(), corruptFile.getValue());
+			try {
+				ModelFile.load(file);
+				check(false, "A model file with a corrupt " + corruptFile.getKey() + " was loaded");
+			} catch (IOException e) {
+				check(e.getMessage().contains(file.toString()), "The message '" + e.getMessage() + "' does not name the file");
+			}
+		}
+	}
+	
+	/**
+	 * A view of 30M instances (20M of class p and 10M of class q), represented by two instances with large multiplicities.
+	 */
+	private static DatasetView largeView(EnumAttribute<String> attribute, EnumAttribute<String> classAttribute) {
+		Dataset dataset = new Dataset(attribute, classAttribute);
+		for (int i = 0; i < 2; i++) {
+			Instance instance = new Instance();
+			instance.addUnchecked(attribute, attribute.value(i));
+			instance.addUnchecked(classAttribute, classAttribute.value(i));
+			dataset.addInstance(instance);
+		}
+		Sampling.Counts counts = new Sampling.Counts(2);
+		for (int i = 0; i < 30000000; i++) {
+			counts.increment(i < 20000000? 0 : 1);
+		}
+		return new DatasetMultiplicityView(dataset, counts);
+	}
+	
+	/**
+	 * Counts beyond 2^24 can not be summed up exactly in a float, so entropy and information gain would be computed from wrong ratios.
+	 */
+	private static void classCountsBeyondFloatPrecision() {
+		EnumAttribute<String> attribute = new EnumAttribute<>("a", "x", "y");
+		EnumAttribute<String> classAttribute = new EnumAttribute<>("class", "p", "q");
+		DatasetView view = largeView(attribute, classAttribute);
+		long[] counts = Measures.classCounts(view, classAttribute);
+		check(counts[0] == 20000000 && counts[1] == 10000000, "Wrong class counts " + Arrays.toString(counts));
+		double expected = -(2.0/3 * Math.log(2.0/3) + 1.0/3 * Math.log(1.0/3))/Math.log(2); // 0.918
+		check(Math.abs(Measures.entropy(counts) - expected) < 1e-5, "Entropy " + Measures.entropy(counts) + " instead of " + expected);
+		float gain = Measures.informationGain(view, classAttribute, attribute);
+		check(Math.abs(gain - expected) < 1e-5, "Information gain " + gain + " instead of " + expected);
+	}
+	
+	/**
+	 * Totals beyond 2^24 can not be summed up exactly in a float, so the accuracy of large test sets would be wrong.
+	 */
+	private static void confusionMatrixBeyondFloatPrecision() {
+		EnumAttribute<String> attribute = new EnumAttribute<>("a", "x", "y");
+		EnumAttribute<String> classAttribute = new EnumAttribute<>("class", "p", "q");
+		DatasetView view = largeView(attribute, classAttribute);
+		ConfusionMatrix matrix = new ConfusionMatrix(view, classAttribute, new int[] {0, 0}); // 20M correct, 10M misclassified
+		check(matrix.numInstances() == 30000000 && matrix.numCorrect() == 20000000, 
+				"Counted " + matrix.numCorrect() + " of " + matrix.numInstances() + " instances as correct");
+		check(Math.abs(matrix.accuracy() - 2.0/3) < 1e-6, "Accuracy " + matrix.accuracy() + " instead of " + 2.0/3);
+	}
+	
+	/**
+	 * Loading a truncated or corrupt binary dataset file must fail with an IOException naming the file, 
+	 * instead of silently dropping the incomplete instance or failing with an unchecked exception.
+	 */
+	private static void corruptDatasetFile() throws IOException {
+		EnumAttribute<String> a = new EnumAttribute<>("a", "x", "y");
+		EnumAttribute<String> classAttribute = new EnumAttribute<>("class", "p", "q");
+		Dataset dataset = new Dataset(a, classAttribute);
+		for (int i = 0; i < 10; i++) {
+			Instance instance = new Instance();
+			instance.addUnchecked(a, a.value(i % 2));
+			instance.addUnchecked(classAttribute, classAttribute.value(i / 5));
+			dataset.addInstance(instance);
+		}
+		File file = File.createTempFile("dataset", ".mldf");
+		file.deleteOnExit();
+		DatasetFile.save(dataset, file);
+		byte[] bytes = Files.readAllBytes(file.toPath());
+		check(DatasetFile.load(file).numInstances() == 10, "The valid file does not load all instances");
+		
+		int valueWidthOffset = bytes.length - 2 * 10 - 4; // one byte per value
+		check(ByteBuffer.wrap(bytes).getInt(valueWidthOffset) == 1, "Unexpected layout of the dataset file");
+		Map<String, byte[]> corruptFiles = new LinkedHashMap<>();
+		corruptFiles.put("incomplete instance", Arrays.copyOf(bytes, bytes.length - 1));
+		corruptFiles.put("truncated header", Arrays.copyOf(bytes, valueWidthOffset + 2));
+		corruptFiles.put("ordinal", withByte(bytes, bytes.length - 1, 2));
+		corruptFiles.put("string length", withInt(bytes, 8, Integer.MAX_VALUE));
+		corruptFiles.put("value width", withInt(bytes, valueWidthOffset, 3));
+		for (Map.Entry<String, byte[]> corruptFile : corruptFiles.entrySet()) {
+			Files.write(file.toPath(), corruptFile.getValue());
+			try {
+				DatasetFile.load(file);
+				check(false, "A dataset file with a corrupt " + corruptFile.getKey() + " was loaded");
+			} catch (IOException e) {
+				check(e.getMessage().contains(file.toString()), "The message '" + e.getMessage() + "' does not name the file");
+			}
+		}
+	}
+	
+	private static byte[] withByte(byte[] bytes, int offset, int value) {
+		byte[] copy = bytes.clone();
+		copy[offset] = (byte) value;
+		return copy;
+	}
+	
+	private static byte[] withInt(byte[] bytes, int offset, int value) {
+		byte[] copy = bytes.clone();
+		ByteBuffer.wrap(copy).putInt(offset, value);
+		return copy;
+	}
+	
+	public static void main(String[] args) {
+		int failed = 0;
+		for (Map.Entry<String, Check> check : checks().entrySet()) {
+			try {
+				check.getValue().run();
+				System.out.printf("%-40s OK%n", check.getKey());
+			} catch (Exception | AssertionError e) {
+				System.out.printf("%-40s FAILED: %s%n", check.getKey(), e);
+				failed++;
+			}
+		}
+		if (failed > 0) {
+			System.out.println(failed + " check(s) failed");
+			System.exit(1);
+		}
+	}
+
+}
@@ -0,0 +1,105 @@
+package uni.ml.dataset;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import lombok.Getter;
+import lombok.experimental.Accessors;
+
+/**
+ * Reads the instances of an ARFF file one by one, without keeping them in memory.
+ * The header (relation name and attributes) is parsed on construction, data lines are parsed on demand.
+ * @see StreamSampling
+ * @author Julian Brummer
+ *
+ */
+@Accessors(fluent=true)
+public class ArffReader implements Iterator<Instance>, Closeable {
+
+	private final BufferedReader reader;
+	/**
+	 * An empty dataset with the name and attributes of the file.
+	 */
+	@Getter
+	private final Dataset header = new Dataset();
+	private String nextLine;
+	
+	/**
+	 * Opens an ARFF file and parses its header.
+	 */
+	public ArffReader(File file) throws IOException {
+		this(new BufferedReader(new FileReader(file)));
+	}
+	
+	/**
+	 * Parses the header of an ARFF file from a reader, which is closed with this ARFF reader.
+	 */
+	public ArffReader(BufferedReader reader) throws IOException {
+		this.reader = reader;
+		String line;
+		while ((line = reader.readLine()) != null) {
+			line = line.trim();
+			if (line.startsWith("@relation")) {
+				header.name(line.split(" ")[1]);
+			} else if (line.startsWith("@attribute")) {
+				header.addAttribute(Dataset.parseAttribute(line));
+			} else if (line.startsWith("@data")) {
+				break;
+			}
+		}
+		advance();
+	}
+	
+	/**
+	 * Reads the next non-empty data line.
+	 */
+	private void advance() {
+		try {
+			do {
+				nextLine = reader.readLine();
+			} while (nextLine != null && (nextLine = nextLine.trim()).isEmpty());
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	@Override
+	public boolean hasNext() {
+		return nextLine != null;
+	}
+
+	@Override
+	public Instance next() {
+		if (nextLine == null)
+			throw new NoSuchElementException();
+		Instance instance = header.parseInstance(nextLine);
+		advance();
+		return instance;
+	}
+	
+	/**
+	 * Skips instances without parsing them.
+	 * @param n The number of instances to skip.
+	 * @return The number of skipped instances, which is less than n if the end of the file has been reached.
+	 */
+	public long skip(long n) {
+		long skipped = 0;
+		while (skipped < n && nextLine != null) {
+			advance();
+			skipped++;
+		}
+		return skipped;
+	}
+
+	@Override
+	public void close() throws IOException {
+		reader.close();
+	}
+
+}
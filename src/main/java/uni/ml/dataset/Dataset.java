@@ -1,8 +1,6 @@
 package uni.ml.dataset;
 
-import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileReader;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -10,6 +8,7 @@ import java.util.List;
 
 import lombok.experimental.Accessors;
 import uni.ml.dataset.view.DatasetView;
+import uni.ml.metrics.DatasetIoEvent;
 
 /**
  * A dataset stores the attributes (e.g. the header/column labels of a table) and
@@ -25,7 +24,10 @@ public class Dataset extends DatasetView {
 	private List<EnumAttribute<?>> attributes = new ArrayList<>();
 	private List<Instance> instances = new ArrayList<>();
 	
-	private EnumAttribute<String> parseAttribute(String line) {
+	/**
+	 * Parses an ARFF attribute declaration (@attribute name {value1, value2, ...}).
+	 */
+	static EnumAttribute<String> parseAttribute(String line) {
 		String[] parts = line.split("\\{");
 		String attrName = parts[0].trim().split(" ")[1].trim();
 		String[] values = parts[1].substring(0, parts[1].length()-1).split(",");
@@ -36,11 +38,17 @@ public class Dataset extends DatasetView {
 		return new EnumAttribute<>(attrName, values);
 	}
 	
-	private Instance parseInstance(String line) {
+	/**
+	 * Parses a comma separated ARFF data line into an instance of this dataset.
+	 * Trailing attributes without values (e.g. the class attribute of an unlabeled row) are left out.
+	 * Note the instance is not added to the dataset.
+	 */
+	public Instance parseInstance(String line) {
 		String[] values = line.split(",");
 		Instance instance = new Instance();
-		for (int i = 0; i < numAttributes(); i++) {
-			instance.addUnchecked(attributes.get(i), new Value<String>(values[i]));
+		int n = Math.min(values.length, numAttributes());
+		for (int i = 0; i < n; i++) {
+			instance.addUnchecked(attributes.get(i), new Value<String>(values[i].trim()));
 		}
 		return instance;		
 	}
@@ -54,30 +62,19 @@ public class Dataset extends DatasetView {
      * Parses the given ARFF file and adds the attributes and instances to the
      * dataset.
      * @throws IOException 
-     *
+     * @see ArffReader
      */
     public void loadFromFile(File file) throws IOException {
-		String line = null;
-		BufferedReader r = new BufferedReader(new FileReader(file));
-	
-		boolean header = true;
-		while ((line = r.readLine()) != null) {
-		    line = line.trim();
-		    if (!line.isEmpty()) {
-			    if (header) {
-					if (line.startsWith("@relation")) {
-					    name(line.split(" ")[1]);
-					} else if (line.startsWith("@attribute")) {
-					    addAttribute(parseAttribute(line));
-					} else if (line.startsWith("@data")) {
-						header = false;
-					}
-			    } else {
-				    addInstance(parseInstance(line));
-			    }
-		    }
+		DatasetIoEvent event = new DatasetIoEvent();
+		event.begin();
+		try (ArffReader reader = new ArffReader(file)) {
+			name(reader.header().name());
+			reader.header().attributes().forEach(this::addAttribute);
+			while (reader.hasNext()) {
+				addInstance(reader.next());
+			}
 		}
-		r.close();
+		event.record("load", "arff", file, numAttributes(), numInstances());
     }
     
     /**
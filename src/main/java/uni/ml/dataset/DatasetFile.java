@@ -0,0 +1,304 @@
+package uni.ml.dataset;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import lombok.Getter;
+import lombok.experimental.Accessors;
+import uni.ml.dataset.view.DatasetView;
+import uni.ml.metrics.DatasetIoEvent;
+
+/**
+ * Saves and loads datasets using a compact, versioned binary format (big endian):
+ * <pre>
+ * int     magic ("MLDF")
+ * int     version
+ * string  name
+ * int     numAttributes
+ *         per attribute: string name, int numValues, string[numValues] values
+ * int     valueWidth (1 or 2 bytes)
+ *         per instance until the end of the file: the unsigned value ordinal of each attribute
+ * </pre>
+ * Strings are stored as an int length followed by the UTF-8 bytes. Values are stored as their ARFF string,
+ * so loaded attributes are always string attributes. A missing (or not allowed) value is stored as an ordinal with all bits set.
+ * Instances are written and read one by one, so files may be larger than memory.
+ * @see ArffReader
+ * @author Julian Brummer
+ *
+ */
+public class DatasetFile {
+
+	public static final int MAGIC = 0x4D4C4446;
+	public static final int VERSION = 1;
+	
+	private static void writeString(DataOutputStream out, String s) throws IOException {
+		byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+
+	/**
+	 * Reads a length or count, which can not exceed the size of the file, so a corrupt value can not cause a huge allocation.
+	 */
+	private static int readLength(DataInputStream in, File file) throws IOException {
+		int length = in.readInt();
+		if (length < 0 || length > file.length())
+			throw new IOException(file + " is corrupt: invalid length " + length);
+		return length;
+	}
+
+	private static String readString(DataInputStream in, File file) throws IOException {
+		byte[] bytes = new byte[readLength(in, file)];
+		in.readFully(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+	
+	/**
+	 * Writes instances to a binary dataset file one by one.
+	 * @author Julian Brummer
+	 *
+	 */
+	public static class Writer implements Closeable {
+		
+		private final DataOutputStream out;
+		private final EnumAttribute<?>[] attributes;
+		private final int valueWidth;
+		private final int missing;
+		
+		/**
+		 * Creates the file and writes the header.
+		 * @param header The dataset(-view) providing the name and attributes.
+		 */
+		public Writer(File file, DatasetView header) throws IOException {
+			this.attributes = new EnumAttribute<?>[header.numAttributes()];
+			int maxValues = 0;
+			for (int i = 0; i < attributes.length; i++) {
+				attributes[i] = header.attributeAt(i);
+				maxValues = Math.max(maxValues, attributes[i].numValues());
+			}
+			if (maxValues >= 0xFFFF)
+				throw new IllegalArgumentException("Attributes with more than " + (0xFFFF-1) + " values are not supported");
+			this.valueWidth = maxValues < 0xFF? 1 : 2;
+			this.missing = valueWidth == 1? 0xFF : 0xFFFF;
+			
+			this.out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 1 << 16));
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			writeString(out, header.name());
+			out.writeInt(attributes.length);
+			for (EnumAttribute<?> attribute : attributes) {
+				writeString(out, attribute.name());
+				out.writeInt(attribute.numValues());
+				for (int j = 0; j < attribute.numValues(); j++) {
+					writeString(out, attribute.value(j).arffString());
+				}
+			}
+			out.writeInt(valueWidth);
+		}
+		
+		/**
+		 * Writes an instance given by the value ordinal of each attribute (negative for a missing value).
+		 */
+		public void write(int[] ordinals) throws IOException {
+			for (int ordinal : ordinals) {
+				int v = ordinal < 0? missing : ordinal;
+				if (valueWidth == 1) {
+					out.writeByte(v);
+				} else {
+					out.writeShort(v);
+				}
+			}
+		}
+		
+		/**
+		 * Writes an instance.
+		 */
+		public void write(Instance instance) throws IOException {
+			int[] ordinals = new int[attributes.length];
+			for (int i = 0; i < attributes.length; i++) {
+				ordinals[i] = attributes[i].indexOf(instance.value(attributes[i]));
+			}
+			write(ordinals);
+		}
+
+		@Override
+		public void close() throws IOException {
+			out.close();
+		}
+	}
+	
+	/**
+	 * Reads the instances of a binary dataset file one by one, without keeping them in memory.
+	 * Since an iterator can not throw checked exceptions, {@link #next()} throws an {@link UncheckedIOException} 
+	 * if the following instance is truncated or corrupt.
+	 * @author Julian Brummer
+	 *
+	 */
+	@Accessors(fluent=true)
+	public static class Reader implements Iterator<Instance>, Closeable {
+		
+		private final File file;
+		private final DataInputStream in;
+		/**
+		 * An empty dataset with the name and attributes of the file.
+		 */
+		@Getter
+		private final Dataset header = new Dataset();
+		private final EnumAttribute<?>[] attributes;
+		private final int valueWidth;
+		private final int missing;
+		private Instance next;
+		
+		/**
+		 * Opens a binary dataset file and reads its header.
+		 * @throws IOException if the file can not be read or is not a valid dataset file.
+		 */
+		public Reader(File file) throws IOException {
+			this.file = file;
+			this.in = new DataInputStream(new BufferedInputStream(new FileInputStream(file), 1 << 16));
+			try {
+				if (in.readInt() != MAGIC)
+					throw new IOException(file + " is not a dataset file");
+				int version = in.readInt();
+				if (version != VERSION)
+					throw new IOException("Unsupported dataset file version " + version + " of " + file);
+				header.name(readString(in, file));
+				this.attributes = new EnumAttribute<?>[readLength(in, file)];
+				for (int i = 0; i < attributes.length; i++) {
+					String name = readString(in, file);
+					String[] values = new String[readLength(in, file)];
+					for (int j = 0; j < values.length; j++) {
+						values[j] = readString(in, file);
+					}
+					attributes[i] = new EnumAttribute<>(name, values);
+					header.addAttribute(attributes[i]);
+				}
+				this.valueWidth = in.readInt();
+				if (valueWidth != 1 && valueWidth != 2)
+					throw new IOException(file + " is corrupt: invalid value width " + valueWidth);
+				this.missing = valueWidth == 1? 0xFF : 0xFFFF;
+				advance();
+			} catch (EOFException e) {
+				in.close();
+				throw new IOException(file + " is truncated", e);
+			} catch (IOException e) {
+				in.close();
+				throw e;
+			} catch (IllegalArgumentException e) {
+				in.close();
+				throw new IOException(file + " is corrupt: " + e.getMessage(), e);
+			}
+		}
+		
+		/**
+		 * Reads the next instance or sets it to null at the end of the file.
+		 * @throws IOException if the file ends within an instance or an ordinal is not allowed for its attribute.
+		 */
+		private void advance() throws IOException {
+			next = null;
+			if (attributes.length == 0) // instances without values take no bytes
+				return;
+			Instance instance = new Instance();
+			for (int i = 0; i < attributes.length; i++) {
+				int ordinal = valueWidth == 1? in.read() : readUnsignedShort();
+				if (ordinal < 0) {
+					if (i == 0)
+						return; // the end of the file
+					throw new IOException(file + " is truncated: the last instance is incomplete");
+				}
+				if (ordinal != missing) {
+					if (ordinal >= attributes[i].numValues())
+						throw new IOException(file + " is corrupt: ordinal " + ordinal + " is not allowed for " + attributes[i]);
+					instance.addUnchecked(attributes[i], attributes[i].value(ordinal));
+				}
+			}
+			next = instance;
+		}
+		
+		/**
+		 * @return The unsigned short or -1 at the end of the file.
+		 * @throws IOException if the file ends within the short.
+		 */
+		private int readUnsignedShort() throws IOException {
+			int high = in.read();
+			if (high < 0)
+				return -1;
+			int low = in.read();
+			if (low < 0)
+				throw new IOException(file + " is truncated: the last instance is incomplete");
+			return (high << 8) | low;
+		}
+
+		@Override
+		public boolean hasNext() {
+			return next != null;
+		}
+
+		@Override
+		public Instance next() {
+			if (next == null)
+				throw new NoSuchElementException();
+			Instance instance = next;
+			try {
+				advance();
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+			return instance;
+		}
+
+		@Override
+		public void close() throws IOException {
+			in.close();
+		}
+	}
+	
+	/**
+	 * Saves a dataset(-view) to a binary dataset file.
+	 * @throws IOException if the file can not be written.
+	 */
+	public static void save(DatasetView dataset, File file) throws IOException {
+		DatasetIoEvent event = new DatasetIoEvent();
+		event.begin();
+		try (Writer writer = new Writer(file, dataset)) {
+			for (Instance instance : dataset.instances()) {
+				writer.write(instance);
+			}
+		}
+		event.record("save", "binary", file, dataset.numAttributes(), dataset.numInstances());
+	}
+	
+	/**
+	 * Loads all instances of a binary dataset file into memory.
+	 * @throws IOException if the file can not be read or is not a valid dataset file.
+	 */
+	public static Dataset load(File file) throws IOException {
+		DatasetIoEvent event = new DatasetIoEvent();
+		event.begin();
+		try (Reader reader = new Reader(file)) {
+			Dataset dataset = reader.header();
+			try {
+				while (reader.hasNext()) {
+					dataset.addInstance(reader.next());
+				}
+			} catch (UncheckedIOException e) {
+				throw e.getCause();
+			}
+			event.record("load", "binary", file, dataset.numAttributes(), dataset.numInstances());
+			return dataset;
+		}
+	}
+
+}
@@ -2,8 +2,10 @@ package uni.ml.dataset;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 
 import lombok.NonNull;
 
@@ -17,6 +19,7 @@ import lombok.NonNull;
 public class EnumAttribute<T extends Comparable<T>> extends Attribute<T> implements Iterable<Value<T>> {
 
 	private List<Value<T>> values;
+	private Map<Value<?>, Integer> ordinals = new HashMap<>();
 	
 	/**
 	 * Creates an Attribute with a list of allowed values.
@@ -26,6 +29,9 @@ public class EnumAttribute<T extends Comparable<T>> extends Attribute<T> impleme
 	public EnumAttribute(@NonNull String name, Value<T>... values) {
 		super(name);
 		this.values = Arrays.asList(values);
+		for (int i = 0; i < values.length; i++) {
+			ordinals.putIfAbsent(values[i], i);
+		}
 	}
 	
 	/**
@@ -37,7 +43,7 @@ public class EnumAttribute<T extends Comparable<T>> extends Attribute<T> impleme
 		super(name);
 		this.values = new ArrayList<>();
 		for (T v : values) {
-			this.values.add(new Value<T>(v));
+			addValue(new Value<T>(v));
 		}
 	}
 	
@@ -46,12 +52,22 @@ public class EnumAttribute<T extends Comparable<T>> extends Attribute<T> impleme
 	 * @param value
 	 */
 	public void addValue(Value<T> value) {
+		ordinals.putIfAbsent(value, values.size());
 		values.add(value);
 	}
 	
 	@Override
 	public boolean isAllowed(Value<?> value) {
-		return values.contains(value);
+		return ordinals.containsKey(value);
+	}
+	
+	/**
+	 * Returns the ordinal of a value, i.e. its index within the list of allowed values.
+	 * @return The index of the value or -1 if the value is not allowed for this attribute.
+	 */
+	public int indexOf(Value<?> value) {
+		Integer ordinal = value == null? null : ordinals.get(value);
+		return ordinal == null? -1 : ordinal;
 	}
 
 	@Override
@@ -1,12 +1,10 @@
 package uni.ml.dataset;
 
 import java.util.Arrays;
-import java.util.Collections;
 import java.util.List;
+import java.util.SplittableRandom;
 import java.util.stream.Collectors;
-import java.util.stream.IntStream;
 
-import lombok.AllArgsConstructor;
 import lombok.ToString;
 import uni.ml.util.Interval;
 
@@ -16,26 +14,90 @@ import uni.ml.util.Interval;
  */
 public class Sampling {
 	
-	@AllArgsConstructor
+	/**
+	 * Two disjoint sets of indices, stored within a single array.
+	 */
 	@ToString(includeFieldNames=true)
 	public static class Split {
-		private List<Integer> first;
-		private List<Integer> second;
+		private int[] indices;
+		private int sizeFirst;
+		
+		/**
+		 * @param indices The indices of the first set followed by the indices of the second set.
+		 * @param sizeFirst The number of indices of the first set.
+		 */
+		public Split(int[] indices, int sizeFirst) {
+			this.indices = indices;
+			this.sizeFirst = sizeFirst;
+		}
 		
 		public int[] first() {
-			return first.stream().mapToInt(i->i).toArray();
+			return Arrays.copyOf(indices, sizeFirst);
 		}
 		
 		public int[] second() {
-			return second.stream().mapToInt(i->i).toArray();
+			return Arrays.copyOfRange(indices, sizeFirst, indices.length);
 		}
 		
 		public int sizeFirst() {
-			return first.size();
+			return sizeFirst;
 		}
 		
 		public int sizeSecond() {
-			return second.size();
+			return indices.length - sizeFirst;
+		}
+	}
+	
+	/**
+	 * The number of times each index is drawn.
+	 * The counts are stored as shorts and only widened to ints once a count exceeds {@link Short#MAX_VALUE}, 
+	 * e.g. if a single instance carries most of the weight of a weighted bootstrap sample.
+	 */
+	public static class Counts {
+		private short[] counts;
+		private int[] wideCounts;
+		
+		/**
+		 * Creates zero counts for the indices 0..numIndices-1.
+		 */
+		public Counts(int numIndices) {
+			this.counts = new short[numIndices];
+		}
+		
+		/**
+		 * Adds one to the count of an index.
+		 */
+		public void increment(int index) {
+			if (wideCounts != null) {
+				wideCounts[index]++;
+			} else if (counts[index] == Short.MAX_VALUE) {
+				wideCounts = new int[counts.length];
+				for (int i = 0; i < counts.length; i++) {
+					wideCounts[i] = counts[i];
+				}
+				counts = null;
+				wideCounts[index]++;
+			} else {
+				counts[index]++;
+			}
+		}
+		
+		public int get(int index) {
+			return wideCounts != null? wideCounts[index] : counts[index];
+		}
+		
+		/**
+		 * @return The number of indices.
+		 */
+		public int size() {
+			return wideCounts != null? wideCounts.length : counts.length;
+		}
+		
+		/**
+		 * @return Whether a count exceeds the range of a short.
+		 */
+		public boolean isWide() {
+			return wideCounts != null;
 		}
 	}
 	
@@ -45,14 +107,39 @@ public class Sampling {
 	 * @param to The end index (exclusive)
 	 */
 	public static int[] rangeArray(int from, int to) {
-		return IntStream.range(from, to).toArray();
+		int[] indices = new int[Math.max(to - from, 0)];
+		for (int i = 0; i < indices.length; i++) {
+			indices[i] = from + i;
+		}
+		return indices;
+	}
+	
+	/**
+	 * Returns the indices [0,numIndices) without the range [from,to), e.g. the training indices of a cross validation fold.
+	 * @param from The start index of the excluded range (inclusive).
+	 * @param to The end index of the excluded range (exclusive).
+	 * @param numIndices The indices are numbered from 0 to numIndices-1
+	 */
+	public static int[] rangeComplement(int from, int to, int numIndices) {
+		from = Math.max(Math.min(from, numIndices), 0);
+		to = Math.max(Math.min(to, numIndices), from);
+		int[] indices = new int[numIndices - (to - from)];
+		for (int i = 0; i < from; i++) {
+			indices[i] = i;
+		}
+		for (int i = to; i < numIndices; i++) {
+			indices[from + i - to] = i;
+		}
+		return indices;
 	}
 	
 	/**
 	 * Returns a ranged list of indices [from,to)
 	 * @param from The start index (inclusive).
 	 * @param to The end index (exclusive)
+	 * @deprecated Use {@link #rangeArray(int, int)}, which does not box the indices.
 	 */
+	@Deprecated
 	public static List<Integer> rangeList(int from, int to) {
 		return Arrays.stream(rangeArray(from, to)).boxed().collect(Collectors.toList());
 	}
@@ -61,11 +148,11 @@ public class Sampling {
 	/**
 	 * Returns a shuffled list of indices.
 	 * @param numIndices The indices are numbered from 0 to numIndices-1
+	 * @deprecated Use {@link #shuffleArray(int)}, which does not box the indices.
 	 */
+	@Deprecated
 	public static List<Integer> shuffleList(int numIndices) {
-		List<Integer> indexList = rangeList(0, numIndices);
-		Collections.shuffle(indexList);
-		return indexList;
+		return Arrays.stream(shuffleArray(numIndices)).boxed().collect(Collectors.toList());
 	}
 	
 	/**
@@ -73,7 +160,23 @@ public class Sampling {
 	 * @param numIndices The indices are numbered from 0 to numIndices-1
 	 */
 	public static int[] shuffleArray(int numIndices) {
-		return shuffleList(numIndices).stream().mapToInt(Integer::intValue).toArray();
+		return shuffleArray(numIndices, new SplittableRandom());
+	}
+	
+	/**
+	 * Returns a shuffled array of indices (Fisher-Yates shuffle).
+	 * @param numIndices The indices are numbered from 0 to numIndices-1
+	 * @param random The random number generator to shuffle the indices with.
+	 */
+	public static int[] shuffleArray(int numIndices, SplittableRandom random) {
+		int[] indices = rangeArray(0, numIndices);
+		for (int i = numIndices-1; i > 0; i--) {
+			int j = random.nextInt(i+1);
+			int tmp = indices[i];
+			indices[i] = indices[j];
+			indices[j] = tmp;
+		}
+		return indices;
 	}
 	
 	/**
@@ -82,28 +185,180 @@ public class Sampling {
 	 * @param numIndices The indices are numbered from 0 to numIndices-1 
 	 */
 	public static Split randomSplit(float ratio, int numIndices) {
+		return randomSplit(ratio, numIndices, new SplittableRandom());
+	}
+	
+	/**
+	 * Randomly splits a number of indices into a two sets (e.g. a for training/testing).
+	 * @param ratio The training ratio.
+	 * @param numIndices The indices are numbered from 0 to numIndices-1 
+	 * @param random The random number generator to shuffle the indices with.
+	 */
+	public static Split randomSplit(float ratio, int numIndices, SplittableRandom random) {
 		int n = Math.min((int) Math.ceil(ratio*numIndices), numIndices);
-		List<Integer> indexList = shuffleList(numIndices);
-		return new Split(indexList.subList(0, n), indexList.subList(n, numIndices));
+		return new Split(shuffleArray(numIndices, random), n);
+	}
+	
+	/**
+	 * Randomly assigns indices to folds for stratified k-fold cross validation.
+	 * The indices of each stratum are distributed evenly over the folds: 
+	 * a stratum with n indices contributes the ranks [i*n/k, (i+1)*n/k) of a random order to fold i. 
+	 * @param strata The stratum (e.g. class value ordinal) of each index or a negative number to exclude an index from all folds.
+	 * @param numStrata The number of strata.
+	 * @param numFolds The number of folds k.
+	 * @param random The random number generator to order the indices with.
+	 * @return The fold of each index or -1 if the index is excluded.
+	 */
+	public static int[] stratifiedFolds(int[] strata, int numStrata, int numFolds, SplittableRandom random) {
+		int[] stratumSizes = new int[numStrata];
+		for (int stratum : strata) {
+			if (stratum >= 0)
+				stratumSizes[stratum]++;
+		}
+		
+		// visit the indices in random order and assign each index by its rank within its stratum
+		int[] ranks = new int[numStrata];
+		int[] folds = new int[strata.length];
+		for (int index : shuffleArray(strata.length, random)) {
+			int stratum = strata[index];
+			folds[index] = stratum < 0? -1 : (int) (((long) ++ranks[stratum] * numFolds - 1) / stratumSizes[stratum]);
+		}
+		return folds;
+	}
+	
+	/**
+	 * Selects the indices of a fold or of all other folds.
+	 * @param folds The fold of each index (negative for excluded indices).
+	 * @param fold The fold to select.
+	 * @param complement Whether to select the indices of all other folds instead, e.g. the training indices of a fold.
+	 * @return The selected indices in ascending order.
+	 */
+	public static int[] foldIndices(int[] folds, int fold, boolean complement) {
+		int size = 0;
+		for (int f : folds) {
+			if (f >= 0 && (f == fold) != complement)
+				size++;
+		}
+		int[] indices = new int[size];
+		int j = 0;
+		for (int i = 0; i < folds.length; i++) {
+			if (folds[i] >= 0 && (folds[i] == fold) != complement)
+				indices[j++] = i;
+		}
+		return indices;
+	}
+	
+	
+	/**
+	 * Randomly selects indices with replacement, each index with the same probability.
+	 * @param numIndices The indices are numbered from 0 to numIndices-1
+	 * @param random The random number generator to draw the indices with.
+	 * @return numIndices drawn indices.
+	 */
+	public static int[] bootstrap(int numIndices, SplittableRandom random) {
+		int[] indices = new int[numIndices];
+		for (int i = 0; i < numIndices; i++) {
+			indices[i] = random.nextInt(numIndices);
+		}
+		return indices;
+	}
+	
+	/**
+	 * Randomly selects indices with replacement, each index with the same probability, 
+	 * and counts how often each index is drawn instead of storing the drawn indices.
+	 * The counts are the same as for {@link #bootstrap(int, SplittableRandom)} with a generator in the same state.
+	 * @param numIndices The indices are numbered from 0 to numIndices-1
+	 * @param random The random number generator to draw the indices with.
+	 * @return The number of times each index is drawn (numIndices draws in total).
+	 */
+	public static Counts bootstrapCounts(int numIndices, SplittableRandom random) {
+		Counts counts = new Counts(numIndices);
+		for (int i = 0; i < numIndices; i++) {
+			counts.increment(random.nextInt(numIndices));
+		}
+		return counts;
 	}
 	
+	/**
+	 * Randomly selects indices using weighted bootstraping and counts how often each index is drawn instead of storing the drawn indices.
+	 * The counts are the same as for {@link #weightedBootstrap(double[], SplittableRandom)} with a generator in the same state.
+	 * @param cumulativeWeights The cumulative weight of each index, i.e. the sum of the weights of the indices 0..i.
+	 * @param numDraws The number of indices to draw.
+	 * @param random The random number generator to draw the indices with.
+	 * @return The number of times each index is drawn.
+	 */
+	public static Counts weightedBootstrapCounts(double[] cumulativeWeights, int numDraws, SplittableRandom random) {
+		int n = cumulativeWeights.length;
+		Counts counts = new Counts(n);
+		if (n == 0)
+			return counts;
+		double sumWeights = cumulativeWeights[n-1];
+		for (int i = 0; i < numDraws; i++) {
+			counts.increment(upperBound(cumulativeWeights, random.nextDouble()*sumWeights));
+		}
+		return counts;
+	}
+	
+	/**
+	 * Randomly selects indices using weighted bootstraping.
+	 * Each index is drawn by a binary search on the cumulative weights, i.e. in O(log n).
+	 * @param cumulativeWeights The cumulative weight of each index, i.e. the sum of the weights of the indices 0..i.
+	 * Index i is drawn with probability (cumulativeWeights[i]-cumulativeWeights[i-1])/cumulativeWeights[n-1].
+	 * @return As many indices as there are weights.
+	 */
+	public static int[] weightedBootstrap(double[] cumulativeWeights) {
+		return weightedBootstrap(cumulativeWeights, new SplittableRandom());
+	}
+	
+	/**
+	 * Randomly selects indices using weighted bootstraping.
+	 * Each index is drawn by a binary search on the cumulative weights, i.e. in O(log n).
+	 * @param cumulativeWeights The cumulative weight of each index, i.e. the sum of the weights of the indices 0..i.
+	 * Index i is drawn with probability (cumulativeWeights[i]-cumulativeWeights[i-1])/cumulativeWeights[n-1].
+	 * @param random The random number generator to draw the indices with.
+	 * @return As many indices as there are weights.
+	 */
+	public static int[] weightedBootstrap(double[] cumulativeWeights, SplittableRandom random) {
+		int n = cumulativeWeights.length;
+		int[] indices = new int[n];
+		if (n == 0)
+			return indices;
+		double sumWeights = cumulativeWeights[n-1];
+		for (int i = 0; i < n; i++) {
+			indices[i] = upperBound(cumulativeWeights, random.nextDouble()*sumWeights);
+		}
+		return indices;
+	}
+	
+	/**
+	 * Finds the first index whose cumulative weight is greater than the drawn value.
+	 * @return The index or the last index if all cumulative weights are less or equal.
+	 */
+	private static int upperBound(double[] cumulativeWeights, double draw) {
+		int low = 0, high = cumulativeWeights.length-1;
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (cumulativeWeights[mid] > draw) {
+				high = mid;
+			} else {
+				low = mid+1;
+			}
+		}
+		return low;
+	}
 	
 	/**
 	 * Randomly selects indices using weighted bootstraping.
 	 * @param distribution The probability distribution for each index. 
+	 * @deprecated Use {@link #weightedBootstrap(double[])}, which does not need an interval per index.
 	 */
+	@Deprecated
 	public static int[] weightedBootstrap(List<Interval> distribution) {
-		int[] indices = new int[distribution.size()];
-		for (int i = 0; i < indices.length; i++) {
-			float draw = (float) Math.random();
-			for (int j = 0; j < distribution.size(); j++) {
-				if (distribution.get(j).containsValue(draw)) {
-					indices[i] = j;
-					break;
-				}
-			}	
+		double[] cumulativeWeights = new double[distribution.size()];
+		for (int i = 0; i < cumulativeWeights.length; i++) {
+			cumulativeWeights[i] = distribution.get(i).right();
 		}
-		return indices;
+		return weightedBootstrap(cumulativeWeights);
 	}
 
 
@@ -0,0 +1,190 @@
+package uni.ml.dataset;
+
+import java.util.Iterator;
+import java.util.PriorityQueue;
+import java.util.SplittableRandom;
+import java.util.function.ToDoubleFunction;
+
+import uni.ml.dataset.view.DatasetView;
+
+/**
+ * Samples instances from a stream in a single pass (reservoir sampling), e.g. from an {@link ArffReader} 
+ * over a file that does not fit into memory or from the instances of a dataset(-view).
+ * Only the sampled instances are kept in memory.
+ * <pre>
+ * try (ArffReader reader = new ArffReader(file)) {
+ *     Dataset sample = StreamSampling.uniform(reader, reader.header(), 10000, new SplittableRandom(seed));
+ * }
+ * </pre>
+ * @author Julian Brummer
+ *
+ */
+public class StreamSampling {
+	
+	/**
+	 * An instance with the key of the weighted reservoir.
+	 */
+	private static class KeyedInstance implements Comparable<KeyedInstance> {
+		private final double key;
+		private final Instance instance;
+		
+		private KeyedInstance(double key, Instance instance) {
+			this.key = key;
+			this.instance = instance;
+		}
+
+		@Override
+		public int compareTo(KeyedInstance o) {
+			return Double.compare(key, o.key);
+		}
+	}
+	
+	/**
+	 * @return A uniformly distributed random number within (0,1].
+	 */
+	private static double nextOpenDouble(SplittableRandom random) {
+		return 1.0 - random.nextDouble();
+	}
+	
+	/**
+	 * Skips instances of the stream, an {@link ArffReader} skips them without parsing.
+	 * @return The number of skipped instances.
+	 */
+	private static long skip(Iterator<Instance> instances, long n) {
+		if (instances instanceof ArffReader)
+			return ((ArffReader) instances).skip(n);
+		long skipped = 0;
+		while (skipped < n && instances.hasNext()) {
+			instances.next();
+			skipped++;
+		}
+		return skipped;
+	}
+	
+	/**
+	 * Creates an empty dataset with the name and attributes of the header.
+	 */
+	private static Dataset emptyDataset(DatasetView header) {
+		Dataset dataset = new Dataset();
+		dataset.name(header.name());
+		header.attributes().forEach(dataset::addAttribute);
+		return dataset;
+	}
+	
+	/**
+	 * Samples instances uniformly without replacement, i.e. each subset of sampleSize instances is equally likely.
+	 * The random number of instances between two replacements is skipped at once (Algorithm L),
+	 * so the number of random draws only grows logarithmically with the length of the stream.
+	 * @param instances The stream to sample from.
+	 * @param header The dataset(-view) providing the name and attributes of the sample.
+	 * @param sampleSize The maximum number of instances to sample.
+	 * @param random The random number generator to sample with.
+	 * @return The sampled instances or all instances if the stream has no more than sampleSize instances.
+	 */
+	public static Dataset uniform(Iterator<Instance> instances, DatasetView header, int sampleSize, SplittableRandom random) {
+		Instance[] reservoir = new Instance[sampleSize];
+		int size = 0;
+		while (size < sampleSize && instances.hasNext()) {
+			reservoir[size++] = instances.next();
+		}
+		
+		if (size == sampleSize && sampleSize > 0) {
+			double w = Math.exp(Math.log(nextOpenDouble(random))/sampleSize);
+			while (true) {
+				long gap = (long) Math.floor(Math.log(nextOpenDouble(random))/Math.log1p(-w));
+				if (skip(instances, gap) < gap || !instances.hasNext())
+					break;
+				reservoir[random.nextInt(sampleSize)] = instances.next();
+				w *= Math.exp(Math.log(nextOpenDouble(random))/sampleSize);
+			}
+		}
+		
+		Dataset sample = emptyDataset(header);
+		for (int i = 0; i < size; i++) {
+			sample.addInstance(reservoir[i]);
+		}
+		return sample;
+	}
+	
+	/**
+	 * Samples instances without replacement with probabilities proportional to the instance weights.
+	 * @see #weighted(Iterator, DatasetView, int, ToDoubleFunction, SplittableRandom)
+	 */
+	public static Dataset weighted(Iterator<Instance> instances, DatasetView header, int sampleSize, SplittableRandom random) {
+		return weighted(instances, header, sampleSize, Instance::weight, random);
+	}
+	
+	/**
+	 * Samples instances without replacement with probabilities proportional to their weights (A-Res).
+	 * Each instance gets the key u^(1/w) for a uniformly distributed u and the instances with the largest keys are kept.
+	 * Instances with a weight of zero or less are never sampled.
+	 * @param instances The stream to sample from.
+	 * @param header The dataset(-view) providing the name and attributes of the sample.
+	 * @param sampleSize The maximum number of instances to sample.
+	 * @param weight Computes the weight of an instance.
+	 * @param random The random number generator to sample with.
+	 * @return The sampled instances.
+	 */
+	public static Dataset weighted(Iterator<Instance> instances, DatasetView header, int sampleSize, ToDoubleFunction<Instance> weight, 
+			SplittableRandom random) {
+		PriorityQueue<KeyedInstance> reservoir = new PriorityQueue<>(Math.max(sampleSize, 1)); // the smallest key on top
+		while (instances.hasNext()) {
+			Instance instance = instances.next();
+			double w = weight.applyAsDouble(instance);
+			if (w <= 0 || sampleSize <= 0)
+				continue;
+			double key = Math.log(nextOpenDouble(random))/w; // log(u^(1/w)) to avoid underflow for small weights
+			if (reservoir.size() < sampleSize) {
+				reservoir.add(new KeyedInstance(key, instance));
+			} else if (key > reservoir.peek().key) {
+				reservoir.poll();
+				reservoir.add(new KeyedInstance(key, instance));
+			}
+		}
+		
+		Dataset sample = emptyDataset(header);
+		for (KeyedInstance keyed : reservoir) {
+			sample.addInstance(keyed.instance);
+		}
+		return sample;
+	}
+	
+	/**
+	 * Samples instances uniformly without replacement within each class value, using a reservoir per class value.
+	 * Instances without a valid class value are skipped.
+	 * @param instances The stream to sample from.
+	 * @param header The dataset(-view) providing the name and attributes of the sample.
+	 * @param classAttribute The attribute to stratify by.
+	 * @param sampleSizePerClass The maximum number of instances to sample per class value.
+	 * @param random The random number generator to sample with.
+	 * @return The sampled instances grouped by class value.
+	 */
+	public static Dataset stratified(Iterator<Instance> instances, DatasetView header, EnumAttribute<?> classAttribute, int sampleSizePerClass, 
+			SplittableRandom random) {
+		Instance[][] reservoirs = new Instance[classAttribute.numValues()][sampleSizePerClass];
+		long[] seen = new long[classAttribute.numValues()];
+		while (instances.hasNext()) {
+			Instance instance = instances.next();
+			int ordinal = classAttribute.indexOf(instance.value(classAttribute));
+			if (ordinal < 0 || sampleSizePerClass <= 0)
+				continue;
+			long n = seen[ordinal]++;
+			if (n < sampleSizePerClass) {
+				reservoirs[ordinal][(int) n] = instance;
+			} else {
+				long j = random.nextLong(n+1);
+				if (j < sampleSizePerClass)
+					reservoirs[ordinal][(int) j] = instance;
+			}
+		}
+		
+		Dataset sample = emptyDataset(header);
+		for (int k = 0; k < reservoirs.length; k++) {
+			for (int i = 0; i < Math.min(seen[k], sampleSizePerClass); i++) {
+				sample.addInstance(reservoirs[k][i]);
+			}
+		}
+		return sample;
+	}
+
+}
@@ -1,10 +1,7 @@
 package uni.ml.dataset.view;
 
-import java.util.Arrays;
 import java.util.List;
-import java.util.stream.Collectors;
 
-import lombok.AllArgsConstructor;
 import uni.ml.dataset.EnumAttribute;
 import uni.ml.dataset.Instance;
 /**
@@ -12,19 +9,26 @@ import uni.ml.dataset.Instance;
  * @author Julian Brummer
  *
  */
-@AllArgsConstructor
 public class DatasetIndexedView extends DatasetView {
 
 	private DatasetView baseView;
-	private List<Integer> indices;
+	private int[] indices;
 	
 	/**
-	 * Decorates the given dataset(-view) with an index list to select instances.
+	 * Decorates the given dataset(-view) with an index array to select instances.
+	 * The array is not copied, so it must not be modified afterwards.
 	 */
 	public DatasetIndexedView(DatasetView baseView, int... indices) {
 		super(baseView.name());
 		this.baseView = baseView;
-		this.indices = Arrays.stream(indices).boxed().collect(Collectors.toList());
+		this.indices = indices;
+	}
+	
+	/**
+	 * Decorates the given dataset(-view) with an index list to select instances.
+	 */
+	public DatasetIndexedView(DatasetView baseView, List<Integer> indices) {
+		this(baseView, indices.stream().mapToInt(Integer::intValue).toArray());
 	}
 	
 	@Override
@@ -34,7 +38,7 @@ public class DatasetIndexedView extends DatasetView {
 	
 	@Override
 	public int numInstances() {
-		return indices.size();
+		return indices.length;
 	}
 	
 	@Override
@@ -44,7 +48,17 @@ public class DatasetIndexedView extends DatasetView {
 	
 	@Override
 	public Instance instanceAt(int index) {
-		return baseView.instanceAt(indices.get(index));
+		return baseView.instanceAt(indices[index]);
+	}
+	
+	@Override
+	public float weightAt(int index) {
+		return baseView.weightAt(indices[index]);
+	}
+
+	@Override
+	public int multiplicityAt(int index) {
+		return baseView.multiplicityAt(indices[index]);
 	}
 
 }
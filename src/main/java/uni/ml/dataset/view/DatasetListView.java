@@ -55,5 +55,25 @@ public class DatasetListView extends DatasetView {
 		}
 		return null;
 	}
+	
+	@Override
+	public float weightAt(int index) {
+		for (DatasetView dataset : datasets) {
+			if (index < dataset.numInstances())
+				return dataset.weightAt(index);
+			index -= dataset.numInstances();
+		}
+		throw new IndexOutOfBoundsException();
+	}
+	
+	@Override
+	public int multiplicityAt(int index) {
+		for (DatasetView dataset : datasets) {
+			if (index < dataset.numInstances())
+				return dataset.multiplicityAt(index);
+			index -= dataset.numInstances();
+		}
+		throw new IndexOutOfBoundsException();
+	}
 
 }
@@ -1,7 +1,6 @@
 package uni.ml.dataset.view;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Arrays;
 import java.util.function.Predicate;
 
 import uni.ml.dataset.Attribute;
@@ -16,18 +15,19 @@ import uni.ml.dataset.Value;
 public class DatasetPredicateView extends DatasetIndexedView {
 
 	/**
-	 * Computes an index list of instances that comply with the specified predicate.
+	 * Computes the indices of instances that comply with the specified predicate.
 	 * @param baseView The dataset(-view) to search for instances.
 	 * @param predicate The predicate to test for each instance.
 	 */
-	private static List<Integer> validIndices(DatasetView baseView, Predicate<Instance> predicate) {
-		List<Integer> indices = new ArrayList<>();
+	private static int[] validIndices(DatasetView baseView, Predicate<Instance> predicate) {
+		int[] indices = new int[baseView.numInstances()];
+		int size = 0;
 		for (int i = 0; i < baseView.numInstances(); i++) {
 			if (predicate.test(baseView.instanceAt(i))) {
-				indices.add(i);
+				indices[size++] = i;
 			}
 		}
-		return indices;
+		return Arrays.copyOf(indices, size);
 	}
 	
 	/**
@@ -1,15 +1,70 @@
 package uni.ml.dataset.view;
 
-import uni.ml.dataset.Sampling;
+import java.util.SplittableRandom;
 
-public class DatasetShuffleView extends DatasetIndexedView {
+import uni.ml.dataset.EnumAttribute;
+import uni.ml.dataset.Instance;
+import uni.ml.util.Permutation;
 
+/**
+ * A view on a dataset, that includes all instances in a pseudo-random order.
+ * The order is computed on the fly from a seed, so the view does not store an index per instance.
+ * @see Permutation
+ * @author Julian Brummer
+ *
+ */
+public class DatasetShuffleView extends DatasetView {
+
+	private DatasetView baseView;
+	private Permutation permutation;
+	
 	/**
 	 * Creates a shuffled view on the specified dataset.
 	 * @param baseView The dataset(-view) to decorate with a shuffled view.
 	 */
 	public DatasetShuffleView(DatasetView baseView) {
-		super(baseView, Sampling.shuffleArray(baseView.numInstances()));
+		this(baseView, new SplittableRandom().nextLong());
+	}
+	
+	/**
+	 * Creates a shuffled view on the specified dataset.
+	 * @param baseView The dataset(-view) to decorate with a shuffled view.
+	 * @param seed The seed of the order, the same seed yields the same order for a base view of the same size.
+	 */
+	public DatasetShuffleView(DatasetView baseView, long seed) {
+		super(baseView.name());
+		this.baseView = baseView;
+		this.permutation = new Permutation(baseView.numInstances(), seed);
+	}
+
+	@Override
+	public int numAttributes() {
+		return baseView.numAttributes();
+	}
+
+	@Override
+	public int numInstances() {
+		return permutation.size();
+	}
+
+	@Override
+	public EnumAttribute<?> attributeAt(int index) {
+		return baseView.attributeAt(index);
+	}
+
+	@Override
+	public Instance instanceAt(int index) {
+		return baseView.instanceAt(permutation.index(index));
+	}
+	
+	@Override
+	public float weightAt(int index) {
+		return baseView.weightAt(permutation.index(index));
+	}
+
+	@Override
+	public int multiplicityAt(int index) {
+		return baseView.multiplicityAt(permutation.index(index));
 	}
 
 }
@@ -14,6 +14,7 @@ import java.util.List;
 import java.util.ListIterator;
 import java.util.NoSuchElementException;
 import java.util.Set;
+import java.util.SplittableRandom;
 
 import lombok.AllArgsConstructor;
 import lombok.Getter;
@@ -24,8 +25,7 @@ import uni.ml.dataset.Attribute;
 import uni.ml.dataset.EnumAttribute;
 import uni.ml.dataset.Instance;
 import uni.ml.dataset.Sampling;
-import uni.ml.util.Interval;
-import uni.ml.util.Interval.Type;
+import uni.ml.metrics.DatasetIoEvent;
 
 
 /**
@@ -151,6 +151,36 @@ public abstract class DatasetView {
 	public abstract EnumAttribute<?> attributeAt(int index);
 	public abstract Instance instanceAt(int index);
 
+	/**
+	 * Returns the weight of the instance at the specified index.
+	 * By default this is the weight stored within the instance, but views may assign their own weights.
+	 * @see DatasetWeightedView
+	 */
+	public float weightAt(int index) {
+		return instanceAt(index).weight();
+	}
+	
+	/**
+	 * Returns how often the instance at the specified index occurs within the dataset(-view), e.g. within a bootstrap sample.
+	 * Counts (e.g. in {@link uni.ml.learning.Measures}) add the multiplicity instead of visiting an instance repeatedly.
+	 * By default each instance occurs once.
+	 * @see DatasetMultiplicityView
+	 */
+	public int multiplicityAt(int index) {
+		return 1;
+	}
+	
+	/**
+	 * @return The number of instances including their multiplicities.
+	 */
+	public long sumMultiplicities() {
+		long sum = 0;
+		for (int i = 0; i < numInstances(); i++) {
+			sum += multiplicityAt(i);
+		}
+		return sum;
+	}
+
 	public boolean hasAttributes() {
 		return numAttributes() > 0;
 	}
@@ -201,17 +231,59 @@ public abstract class DatasetView {
 	}
 	
 	/**
-	 * Normalizes the weights and samples instances from the weighted dataset(-view) with replacement.
+	 * Splits the dataset(-view) randomly into a training- and a test set.
+	 * @param ratio The ratio of the training set. Must be between 0 and 1.
+	 * @param random The random number generator to split the dataset with.
+	 * @return The training and test set.
+	 */
+	public DatasetSplit randomSplit(float ratio, SplittableRandom random) {
+		Sampling.Split split = Sampling.randomSplit(ratio, numInstances(), random);
+		return new DatasetSplit(new DatasetIndexedView(this, split.first()), new DatasetIndexedView(this, split.second()));
+	}
+	
+	/**
+	 * Samples as many instances as there are (including multiplicities) from the dataset(-view) with replacement,
+	 * each with the same probability.
+	 * @param random The random number generator to draw the instances with.
+	 * @return The drawn instances, each once with the number of times it was drawn as multiplicity.
+	 */
+	public DatasetMultiplicityView bootstrapSampling(SplittableRandom random) {
+		if (!hasInstances())
+			return new DatasetMultiplicityView(this, new Sampling.Counts(0));
+		long n = sumMultiplicities();
+		if (n == numInstances())
+			return new DatasetMultiplicityView(this, Sampling.bootstrapCounts(numInstances(), random));
+		double[] cumulativeMultiplicities = new double[numInstances()];
+		double sum = 0.0;
+		for (int i = 0; i < cumulativeMultiplicities.length; i++) {
+			sum += multiplicityAt(i);
+			cumulativeMultiplicities[i] = sum;
+		}
+		return new DatasetMultiplicityView(this, Sampling.weightedBootstrapCounts(cumulativeMultiplicities, (int) n, random));
+	}
+	
+	/**
+	 * Samples instances from the weighted dataset(-view) with replacement.
+	 * The probability to draw an instance is its weight divided by the sum of all weights, so the weights need not be normalized.
 	 */
 	public DatasetView weightedBootstrapSampling() {
-		normalizeWeights();
-		List<Interval> distribution = new ArrayList<>();
-		float margin = 0.0f;
-		for (Instance instance : instances()) {
-			distribution.add(new Interval(margin, margin+instance.weight(), Type.R_OPEN));
-			margin += instance.weight();
+		return weightedBootstrapSampling(new SplittableRandom());
+	}
+	
+	/**
+	 * Samples as many instances as there are (including multiplicities) from the weighted dataset(-view) with replacement.
+	 * The probability to draw an instance is its weight divided by the sum of all weights, so the weights need not be normalized.
+	 * @param random The random number generator to draw the instances with.
+	 * @return The drawn instances, each once with the number of times it was drawn as multiplicity.
+	 */
+	public DatasetMultiplicityView weightedBootstrapSampling(SplittableRandom random) {
+		double[] cumulativeWeights = new double[numInstances()];
+		double sumWeights = 0.0;
+		for (int i = 0; i < cumulativeWeights.length; i++) {
+			sumWeights += weightAt(i) * multiplicityAt(i);
+			cumulativeWeights[i] = sumWeights;
 		}
-		return new DatasetIndexedView(this, Sampling.weightedBootstrap(distribution));
+		return new DatasetMultiplicityView(this, Sampling.weightedBootstrapCounts(cumulativeWeights, (int) sumMultiplicities(), random));
 	}
 	
 	
@@ -236,12 +308,12 @@ public abstract class DatasetView {
 	}
 	
 	/**
-	 * @return The sum of all instance weights.
+	 * @return The sum of all instance weights (each weight multiplied by the multiplicity of the instance).
 	 */
 	public float sumWeights() {
 		float sumWeights = 0.0f;
-		for (Instance instance : instances()) {
-			sumWeights += instance.weight();
+		for (int i = 0; i < numInstances(); i++) {
+			sumWeights += weightAt(i) * multiplicityAt(i);
 		}	
 		return sumWeights;
 	}
@@ -252,6 +324,8 @@ public abstract class DatasetView {
 	 * @throws IOException if file can not be created, UTF-8 encoding is not supported or an io exception occured.
 	 */
 	public void saveToArffFile(File file) throws IOException {
+		DatasetIoEvent event = new DatasetIoEvent();
+		event.begin();
 		try (Writer writer = new BufferedWriter(new OutputStreamWriter(
 	              new FileOutputStream(file), "utf-8"))) {
 			writer.write("@relation " + name);
@@ -268,6 +342,7 @@ public abstract class DatasetView {
 				writer.write("\n");
 			}
 		} 
+		event.record("save", "arff", file, numAttributes(), numInstances());
 		
 	}
 	
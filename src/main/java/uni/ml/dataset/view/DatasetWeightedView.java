@@ -0,0 +1,90 @@
+package uni.ml.dataset.view;
+
+import java.util.Arrays;
+
+import uni.ml.dataset.EnumAttribute;
+import uni.ml.dataset.Instance;
+
+/**
+ * A view that assigns its own weights to the instances of a dataset(-view).
+ * The weights stored within the instances are neither used nor modified,
+ * so multiple weighted views can share the same instances (e.g. in concurrent boosting runs).
+ * @author Julian Brummer
+ *
+ */
+public class DatasetWeightedView extends DatasetView {
+
+	private DatasetView baseView;
+	private float[] weights;
+
+	/**
+	 * Decorates the given dataset(-view) with weights, initialized with the weights of the base view.
+	 */
+	public DatasetWeightedView(DatasetView baseView) {
+		super(baseView.name());
+		this.baseView = baseView;
+		this.weights = new float[baseView.numInstances()];
+		for (int i = 0; i < weights.length; i++) {
+			weights[i] = baseView.weightAt(i);
+		}
+	}
+
+	@Override
+	public int numAttributes() {
+		return baseView.numAttributes();
+	}
+
+	@Override
+	public int numInstances() {
+		return weights.length;
+	}
+
+	@Override
+	public EnumAttribute<?> attributeAt(int index) {
+		return baseView.attributeAt(index);
+	}
+
+	@Override
+	public Instance instanceAt(int index) {
+		return baseView.instanceAt(index);
+	}
+
+	@Override
+	public float weightAt(int index) {
+		return weights[index];
+	}
+
+	@Override
+	public int multiplicityAt(int index) {
+		return baseView.multiplicityAt(index);
+	}
+
+	/**
+	 * Assigns a new weight to the instance at the specified index.
+	 */
+	public void weightAt(int index, float weight) {
+		weights[index] = weight;
+	}
+
+	/**
+	 * Multiplies the weight of the instance at the specified index with a factor.
+	 * @return The new weight.
+	 */
+	public float multiplyWeight(int index, float factor) {
+		return weights[index] *= factor;
+	}
+
+	@Override
+	public void assignEqualWeights() {
+		Arrays.fill(weights, 1.0f/numInstances());
+	}
+
+	@Override
+	public void normalizeWeights() {
+		float sumWeights = sumWeights();
+		for (int i = 0; i < weights.length; i++) {
+			weights[i] /= sumWeights;
+		}
+	}
+
+}
@@ -9,22 +9,34 @@ package uni.ml.exercise;
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.LongFunction;
 
 import uni.ml.dataset.Dataset;
 import uni.ml.dataset.EnumAttribute;
 import uni.ml.dataset.Sampling;
 import uni.ml.dataset.Value;
 import uni.ml.dataset.view.DatasetIndexedView;
-import uni.ml.dataset.view.DatasetListView;
 import uni.ml.dataset.view.DatasetPredicateView;
 import uni.ml.dataset.view.DatasetRangeView;
 import uni.ml.dataset.view.DatasetShuffleView;
+import uni.ml.dataset.view.DatasetSplit;
 import uni.ml.dataset.view.DatasetView;
 import uni.ml.learning.ClassificationResult;
+import uni.ml.learning.ConfusionMatrix;
 import uni.ml.learning.DecisionModel;
 import uni.ml.learning.DecisionTreeModel;
 import uni.ml.learning.Measures;
+import uni.ml.metrics.CrossValidationFoldEvent;
+import uni.ml.metrics.Metrics;
+import uni.ml.util.Tasks;
 
 /**
  * The main class for Exercise04 Task03.
@@ -68,9 +80,8 @@ public class Exercise04Task03 {
 		if (numFolds == 0) 
 			return dataset;
 		
-		List<Integer> indices = Sampling.rangeList(0, foldIndex * dataset.numInstances()/numFolds);
-		indices.addAll(Sampling.rangeList((foldIndex+1) * (dataset.numInstances()/numFolds), dataset.numInstances()));
-		return new DatasetIndexedView(dataset, indices);
+		int n = dataset.numInstances();
+		return new DatasetIndexedView(dataset, Sampling.rangeComplement(foldIndex * n/numFolds, (foldIndex+1) * n/numFolds, n));
 	}
 	
    /**
@@ -85,49 +96,100 @@ public class Exercise04Task03 {
 		if (numFolds == 0) 
 			return dataset;
 	
-		return new DatasetRangeView(dataset, foldIndex * dataset.numInstances()/numFolds, (foldIndex+1) * (dataset.numInstances()/numFolds));
+		return new DatasetRangeView(dataset, foldIndex * dataset.numInstances()/numFolds, (foldIndex+1) * dataset.numInstances()/numFolds);
 	}	
 	
 	/**
-	 * Creates and saves datasets for stratified cross validation.
+	 * Creates the training and test sets for stratified cross validation.
+	 * The instances of each class value are distributed randomly and evenly over the folds, so the test sets partition 
+	 * the dataset (except for instances without a valid class value) and each training set is the complement of its test set.
 	 * @param dataset The full dataset.
 	 * @param classAttribute The target attribute.
 	 * @param numFolds The number of cross validation folds.
-	 * @param directory Specifies the folder to which the training and testSet created during cross validation should be saved,
-	 * or <code>null</code> to not save.
+	 * @return The training and test set of each fold in fold order.
+	 * @see Sampling#stratifiedFolds(int[], int, int, SplittableRandom)
 	 */
-	public static void createSCVFiles(DatasetView dataset, EnumAttribute<?> classAttribute, int numFolds, File directory) {
-		// split dataset by values of classAttribute and shuffle each one
-		List<DatasetView> stratified = stratification(dataset, classAttribute);
-		for (int i = 0; i < stratified.size(); i++) {
-			stratified.set(i, shuffle(stratified.get(i)));
+	public static List<DatasetSplit> stratifiedFolds(DatasetView dataset, EnumAttribute<?> classAttribute, int numFolds) {
+		return stratifiedFolds(dataset, classAttribute, numFolds, new SplittableRandom());
+	}
+	
+	/**
+	 * Creates the training and test sets for stratified cross validation.
+	 * The instances of each class value are distributed randomly and evenly over the folds, so the test sets partition 
+	 * the dataset (except for instances without a valid class value) and each training set is the complement of its test set.
+	 * @param dataset The full dataset.
+	 * @param classAttribute The target attribute.
+	 * @param numFolds The number of cross validation folds.
+	 * @param random The random number generator to assign the instances to folds with.
+	 * @return The training and test set of each fold in fold order.
+	 * @see Sampling#stratifiedFolds(int[], int, int, SplittableRandom)
+	 */
+	public static List<DatasetSplit> stratifiedFolds(DatasetView dataset, EnumAttribute<?> classAttribute, int numFolds, SplittableRandom random) {
+		int[] strata = new int[dataset.numInstances()];
+		for (int i = 0; i < strata.length; i++) {
+			strata[i] = classAttribute.indexOf(dataset.instanceAt(i).value(classAttribute));
 		}
+		int[] foldIds = Sampling.stratifiedFolds(strata, classAttribute.numValues(), numFolds, random);
 		
-		
+		List<DatasetSplit> folds = new ArrayList<>();
 		for (int i = 0; i < numFolds; i++) {
-			// from each same-classed-dataset select a training- and testset (ratio numFolds:1) according to cross validation
-			// these sets are then linked together to form the final stratified training- and testset.
-			DatasetListView trainingSet = new DatasetListView();
-			DatasetListView testSet = new DatasetListView();
-			for (int j = 0; j < stratified.size(); j++) {
-				trainingSet.append(trainCV(stratified.get(j), i, numFolds)); 
-				testSet.append(testCV(stratified.get(j), i, numFolds));
-			}
-			
-			// save sets to specified directory
-			if (directory != null) {
-				trainingSet.name("trainingSet"+i);
-				testSet.name("testSet"+i);
-				try {
-					trainingSet.saveToArff(directory);
-					testSet.saveToArff(directory);
-				} catch (IOException e) {
-					e.printStackTrace();
-				}
+			DatasetView trainingSet = new DatasetIndexedView(dataset, Sampling.foldIndices(foldIds, i, true));
+			DatasetView testSet = new DatasetIndexedView(dataset, Sampling.foldIndices(foldIds, i, false));
+			trainingSet.name("trainingSet"+i);
+			testSet.name("testSet"+i);
+			folds.add(new DatasetSplit(trainingSet, testSet));
+		}
+		return folds;
+	}
+	
+	/**
+	 * Saves the training and test sets of cross validation folds.
+	 * @param folds The folds to save.
+	 * @param directory Specifies the folder to which the training and testSets should be saved,
+	 * or <code>null</code> to not save.
+	 */
+	private static void saveFolds(List<DatasetSplit> folds, File directory) {
+		if (directory == null)
+			return;
+		for (DatasetSplit fold : folds) {
+			try {
+				fold.trainingSet.saveToArff(directory);
+				fold.testSet.saveToArff(directory);
+			} catch (IOException e) {
+				e.printStackTrace();
 			}
 		}
 	}
 	
+	/**
+	 * Creates and saves datasets for stratified cross validation.
+	 * @param dataset The full dataset.
+	 * @param classAttribute The target attribute.
+	 * @param numFolds The number of cross validation folds.
+	 * @param directory Specifies the folder to which the training and testSet created during cross validation should be saved,
+	 * or <code>null</code> to not save.
+	 */
+	public static void createSCVFiles(DatasetView dataset, EnumAttribute<?> classAttribute, int numFolds, File directory) {
+		saveFolds(stratifiedFolds(dataset, classAttribute, numFolds), directory);
+	}
+	
+	
+	/**
+	 * Ends the flight recorder event of a cross validation fold and commits it, if it is recorded.
+	 * @param accuracy The accuracy of the model on the test set of the fold.
+	 */
+	private static void recordFold(CrossValidationFoldEvent event, int fold, int numFolds, DecisionModel model, DatasetSplit split, float accuracy) {
+		event.end();
+		if (event.shouldCommit()) {
+			event.fold(fold)
+				.numFolds(numFolds)
+				.model(model.getClass().getSimpleName())
+				.trainingInstances(split.trainingSet.numInstances())
+				.testInstances(split.testSet.numInstances())
+				.accuracy(accuracy)
+				.commit();
+		}
+	}
 	
 	/**
 	 * Evaluates a decision model using stratified cross validation.
@@ -143,44 +205,211 @@ public class Exercise04Task03 {
 			int numFolds, File directory) {
 		List<Float> accuracy = new ArrayList<>(); //stores the classification accuracies for each test run
 		
-		// split dataset by values of classAttribute and shuffle each one
-		List<DatasetView> stratified = stratification(dataset, classAttribute);
-		for (int i = 0; i < stratified.size(); i++) {
-			stratified.set(i, shuffle(stratified.get(i)));
+		List<DatasetSplit> folds = stratifiedFolds(dataset, classAttribute, numFolds);
+		saveFolds(folds, directory);
+		for (int i = 0; i < folds.size(); i++) {
+			// train and test
+			DatasetSplit fold = folds.get(i);
+			CrossValidationFoldEvent event = new CrossValidationFoldEvent();
+			event.begin();
+			model.trainModel(fold.trainingSet, classAttribute);
+			float foldAccuracy = model.testModel(fold.testSet, classAttribute);
+			recordFold(event, i, numFolds, model, fold, foldAccuracy);
+			accuracy.add(foldAccuracy);
+		}
+		
+		return Measures.meanDev(accuracy); // compute mean and standard deviation
+	}
+	
+	/**
+	 * Evaluates a decision model using stratified cross validation, training and testing the folds concurrently.
+	 * Each fold trains its own model created by the factory. The fold assignment and the seeds of the models are drawn from 
+	 * a random number generator with the specified seed and the accuracies are aggregated in fold order (see {@link DecisionModel}).
+	 * @param dataset The full dataset.
+	 * @param classAttribute The target attribute.
+	 * @param modelFactory Creates a new (untrained) decision model for each fold from the seed of the fold,
+	 * which must be used as the seed of models with randomness (e.g. forests).
+	 * @param numFolds The number of cross validation folds.
+	 * @param directory Specifies the folder to which the training and testSet created during cross validation should be saved,
+	 * or <code>null</code> to not save.
+	 * @param seed The seed of the random assignment of instances to folds and of the models.
+	 * @param executor The executor to run the folds on.
+	 * @return The mean and standard deviation of the accuracy.
+	 */
+	public static ClassificationResult stratifiedCrossValidation(DatasetView dataset, EnumAttribute<?> classAttribute, 
+			LongFunction<? extends DecisionModel> modelFactory, int numFolds, File directory, long seed, ExecutorService executor) {
+		SplittableRandom random = new SplittableRandom(seed);
+		List<DatasetSplit> folds = stratifiedFolds(dataset, classAttribute, numFolds, random);
+		saveFolds(folds, directory);
+		
+		List<Callable<Float>> tasks = new ArrayList<>();
+		for (int i = 0; i < folds.size(); i++) {
+			int foldIndex = i;
+			DatasetSplit fold = folds.get(i);
+			long modelSeed = random.nextLong(); // drawn in fold order
+			tasks.add(() -> {
+				CrossValidationFoldEvent event = new CrossValidationFoldEvent();
+				event.begin();
+				DecisionModel model = modelFactory.apply(modelSeed);
+				model.trainModel(fold.trainingSet, classAttribute);
+				float accuracy = model.testModel(fold.testSet, classAttribute);
+				recordFold(event, foldIndex, numFolds, model, fold, accuracy);
+				return accuracy;
+			});
 		}
 		
+		List<Float> accuracy = Tasks.invokeAllOrdered(executor, tasks, "cross validation"); //the classification accuracies for each fold in fold order
 		
-		for (int i = 0; i < numFolds; i++) {
-			// from each same-classed-dataset select a training- and testset (ratio numFolds:1) according to cross validation
-			// these sets are then linked together to form the final stratified training- and testset.
-			DatasetListView trainingSet = new DatasetListView();
-			DatasetListView testSet = new DatasetListView();
-			for (int j = 0; j < stratified.size(); j++) {
-				trainingSet.append(trainCV(stratified.get(j), i, numFolds)); 
-				testSet.append(testCV(stratified.get(j), i, numFolds));
-			}
-			
-			// save sets to specified directory
-			if (directory != null) {
-				trainingSet.name("trainingSet"+i);
-				testSet.name("testSet"+i);
-				try {
-					trainingSet.saveToArff(directory);
-					testSet.saveToArff(directory);
-				} catch (IOException e) {
-					e.printStackTrace();
+		return Measures.meanDev(accuracy); // compute mean and standard deviation
+	}
+	
+	/**
+	 * Selects the decision attribute of the root of a decision tree for each cross validation fold.
+	 * The counts of each attribute value and class value are computed once for each test fold. Since the test folds 
+	 * partition the dataset, the counts of a training fold are the counts of all test folds minus the counts of its test fold,
+	 * so the training sets need not be counted at all. The counts are longs, so the subtraction is exact for any dataset size.
+	 * @param folds The folds, whose test sets partition the dataset and whose training sets are the complements of their test sets.
+	 * @param classAttribute The target attribute.
+	 * @return The root attribute for each fold in fold order.
+	 * @see #stratifiedFolds(DatasetView, EnumAttribute, int)
+	 */
+	public static List<EnumAttribute<?>> rootAttributes(List<DatasetSplit> folds, EnumAttribute<?> classAttribute) {
+		List<EnumAttribute<?>> rootAttributes = new ArrayList<>();
+		if (folds.isEmpty())
+			return rootAttributes;
+		
+		Set<EnumAttribute<?>> attributes = folds.get(0).trainingSet.attributeSet(classAttribute);
+		Map<EnumAttribute<?>, long[][]> totalCounts = new HashMap<>();
+		List<Map<EnumAttribute<?>, long[][]>> foldCounts = new ArrayList<>();
+		for (DatasetSplit fold : folds) {
+			Map<EnumAttribute<?>, long[][]> counts = new HashMap<>();
+			for (EnumAttribute<?> attribute : attributes) {
+				long[][] c = Measures.classCounts(fold.testSet, classAttribute, attribute);
+				counts.put(attribute, c);
+				long[][] total = totalCounts.computeIfAbsent(attribute, a -> new long[c.length][classAttribute.numValues()]);
+				for (int v = 0; v < c.length; v++) {
+					for (int k = 0; k < c[v].length; k++) {
+						total[v][k] += c[v][k];
+					}
 				}
 			}
-			// train and test
-			model.trainModel(trainingSet, classAttribute);
-			accuracy.add(model.testModel(testSet, classAttribute));
+			foldCounts.add(counts);
 		}
 		
+		for (Map<EnumAttribute<?>, long[][]> counts : foldCounts) {
+			// training counts = total counts - test counts
+			rootAttributes.add(DecisionTreeModel.selectPartitionAttribute(attributes, attribute -> {
+				long[][] total = totalCounts.get(attribute);
+				long[][] test = counts.get(attribute);
+				long[][] training = new long[total.length][];
+				for (int v = 0; v < total.length; v++) {
+					training[v] = new long[total[v].length];
+					for (int k = 0; k < total[v].length; k++) {
+						training[v][k] = total[v][k] - test[v][k];
+					}
+				}
+				return Measures.informationGain(training);
+			}));
+		}
+		return rootAttributes;
+	}
+	
+	/**
+	 * Evaluates a decision tree using stratified cross validation, selecting the root attribute of all folds from shared counts.
+	 * The trees are the same as trained by {@link #stratifiedCrossValidation(DatasetView, EnumAttribute, LongFunction, int, File, long, ExecutorService)}
+	 * with the same seed. The folds run concurrently.
+	 * @param dataset The full dataset.
+	 * @param classAttribute The target attribute.
+	 * @param maxDepth The maximum depth of the decision trees.
+	 * @param numFolds The number of cross validation folds.
+	 * @param seed The seed of the random assignment of instances to folds.
+	 * @param executor The executor to run the folds on.
+	 * @return The mean and standard deviation of the accuracy.
+	 * @see #rootAttributes(List, EnumAttribute)
+	 */
+	public static ClassificationResult incrementalCrossValidation(DatasetView dataset, EnumAttribute<?> classAttribute, int maxDepth, 
+			int numFolds, long seed, ExecutorService executor) {
+		List<DatasetSplit> folds = stratifiedFolds(dataset, classAttribute, numFolds, new SplittableRandom(seed));
+		List<EnumAttribute<?>> rootAttributes = rootAttributes(folds, classAttribute);
+		
+		List<Callable<Float>> tasks = new ArrayList<>();
+		for (int i = 0; i < folds.size(); i++) {
+			int foldIndex = i;
+			DatasetSplit fold = folds.get(i);
+			EnumAttribute<?> rootAttribute = rootAttributes.get(i);
+			tasks.add(() -> {
+				CrossValidationFoldEvent event = new CrossValidationFoldEvent();
+				event.begin();
+				DecisionTreeModel model = new DecisionTreeModel(maxDepth);
+				model.trainModel(fold.trainingSet, classAttribute, rootAttribute);
+				float accuracy = model.testModel(fold.testSet, classAttribute);
+				recordFold(event, foldIndex, numFolds, model, fold, accuracy);
+				return accuracy;
+			});
+		}
+		
+		List<Float> accuracy = Tasks.invokeAllOrdered(executor, tasks, "cross validation"); //the classification accuracies for each fold in fold order
+		
 		return Measures.meanDev(accuracy); // compute mean and standard deviation
 	}
+	
+	/**
+	 * Evaluates decision trees of all depths up to maxDepth using stratified cross validation.
+	 * Only one tree per fold is trained (with maxDepth), shallower trees are evaluated by truncating it during classification,
+	 * which yields the same predictions as retraining with the shallower depth. The folds run concurrently.
+	 * @param dataset The full dataset.
+	 * @param classAttribute The target attribute.
+	 * @param maxDepth The maximum depth to evaluate.
+	 * @param numFolds The number of cross validation folds.
+	 * @param seed The seed of the random assignment of instances to folds.
+	 * @param executor The executor to run the folds on.
+	 * @return The mean and standard deviation of the accuracy for each depth, the i-th result belongs to depth i+1.
+	 */
+	public static List<ClassificationResult> depthSweep(DatasetView dataset, EnumAttribute<?> classAttribute, int maxDepth, 
+			int numFolds, long seed, ExecutorService executor) {
+		List<DatasetSplit> folds = stratifiedFolds(dataset, classAttribute, numFolds, new SplittableRandom(seed));
+		List<Callable<float[]>> tasks = new ArrayList<>();
+		for (int i = 0; i < folds.size(); i++) {
+			int foldIndex = i;
+			DatasetSplit fold = folds.get(i);
+			tasks.add(() -> {
+				CrossValidationFoldEvent event = new CrossValidationFoldEvent();
+				event.begin();
+				DecisionTreeModel model = new DecisionTreeModel(maxDepth);
+				model.trainModel(fold.trainingSet, classAttribute);
+				float[] accuracy = new float[maxDepth];
+				for (int depth = 1; depth <= maxDepth; depth++) {
+					int[] predictions = model.classifier(depth).classifyAll(fold.testSet, classAttribute);
+					accuracy[depth-1] = new ConfusionMatrix(fold.testSet, classAttribute, predictions).accuracy();
+				}
+				recordFold(event, foldIndex, numFolds, model, fold, accuracy[maxDepth-1]);
+				return accuracy;
+			});
+		}
+		
+		List<List<Float>> accuracy = new ArrayList<>(); //stores the classification accuracies for each depth in fold order
+		for (int depth = 1; depth <= maxDepth; depth++) {
+			accuracy.add(new ArrayList<>());
+		}
+		for (float[] a : Tasks.invokeAllOrdered(executor, tasks, "cross validation")) {
+			for (int i = 0; i < maxDepth; i++) {
+				accuracy.get(i).add(a[i]);
+			}
+		}
+		
+		List<ClassificationResult> results = new ArrayList<>();
+		for (List<Float> depthAccuracy : accuracy) {
+			results.add(Measures.meanDev(depthAccuracy));
+		}
+		return results;
+	}
 
 
+	/**
+	 * The training metrics are exposed as an MBean (enabled with -Duni.ml.metrics=true or via JMX).
+	 */
 	public static void main(String[] args) {
+		Metrics.registerMBean();
 		Dataset dataset = new Dataset();
 		if (args.length > 0) {
 			try {
@@ -194,13 +423,15 @@ public class Exercise04Task03 {
 				if (maxDepth <= 0) { // do not run scv just create files
 					createSCVFiles(dataset, dataset.lastAttribute(), numFolds, outputPath);
 				} else {
+					long seed = new SplittableRandom().nextLong();
 					ClassificationResult accuracy = stratifiedCrossValidation(dataset, dataset.lastAttribute(), 
-																			  new DecisionTreeModel(maxDepth), 
-																			  numFolds, outputPath);
+																			  modelSeed -> new DecisionTreeModel(maxDepth).seed(modelSeed), 
+																			  numFolds, outputPath, seed, ForkJoinPool.commonPool());
 										
 					System.out.println("Number of instances: " + dataset.numInstances());
 					System.out.println("Number of Folds: " + numFolds);
 					System.out.println("MaxDepth: " + maxDepth);
+					System.out.println("Seed: " + seed);
 					System.out.println("Accuracy: " + accuracy);
 				}
 			} catch (IOException e) {
@@ -0,0 +1,51 @@
+package uni.ml.learning;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+
+import uni.ml.dataset.EnumAttribute;
+import uni.ml.dataset.view.DatasetView;
+import uni.ml.util.Tasks;
+
+/**
+ * Trains independent decision trees on bootstrap samples (bagging), e.g. for a random forest.
+ * @author Julian Brummer
+ *
+ */
+public class Bagging {
+
+	/**
+	 * Trains a decision tree on a bootstrap sample of the dataset.
+	 * @param random The random number generator of this tree, used for the bootstrap sample and the candidate attributes.
+	 */
+	public static DecisionTreeModel trainTree(DatasetView dataset, EnumAttribute<?> classAttribute, int maxDepth, int attributeSubsetSize, SplittableRandom random) {
+		DatasetView sampledSet = dataset.bootstrapSampling(random);
+		DecisionTreeModel model = new DecisionTreeModel(maxDepth).attributeSubsetSize(attributeSubsetSize).seed(random.nextLong());
+		model.trainModel(sampledSet, classAttribute);
+		return model;
+	}
+
+	/**
+	 * Trains a number of decision trees in parallel.
+	 * Each tree uses its own random number generator split off from a generator with the specified seed.
+	 * @param numTrees The number of trees to train.
+	 * @param attributeSubsetSize The number of random candidate attributes per node (0 for all attributes).
+	 * @param seed The seed of the random number generator.
+	 * @param executor The executor to train the trees on.
+	 * @return The trained trees in a fixed order.
+	 */
+	public static List<DecisionTreeModel> modelGeneration(DatasetView dataset, int numTrees, EnumAttribute<?> classAttribute, int maxDepth,
+			int attributeSubsetSize, long seed, ExecutorService executor) {
+		SplittableRandom random = new SplittableRandom(seed);
+		List<Callable<DecisionTreeModel>> tasks = new ArrayList<>();
+		for (int i = 0; i < numTrees; i++) {
+			SplittableRandom treeRandom = random.split();
+			tasks.add(() -> trainTree(dataset, classAttribute, maxDepth, attributeSubsetSize, treeRandom));
+		}
+		return Tasks.invokeAllOrdered(executor, tasks, "bagging");
+	}
+
+}
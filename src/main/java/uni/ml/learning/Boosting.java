@@ -2,64 +2,205 @@ package uni.ml.learning;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.SplittableRandom;
 
 import uni.ml.dataset.EnumAttribute;
 import uni.ml.dataset.Instance;
 import uni.ml.dataset.Value;
-import uni.ml.dataset.WeightedValues;
 import uni.ml.dataset.view.DatasetView;
+import uni.ml.dataset.view.DatasetWeightedView;
+import uni.ml.metrics.BoostingIterationEvent;
+import uni.ml.metrics.Metrics;
+import uni.ml.metrics.TrainingMetrics;
 import uni.ml.tree.Classifier;
 
 public class Boosting {
 	
 	public static List<DecisionTreeModel> modelGeneration(DatasetView dataset, int numIterations, EnumAttribute<?> classAttribute, int maxDepth) {
+		return modelGeneration(dataset, numIterations, classAttribute, maxDepth, true);
+	}
+	
+	/**
+	 * Generates a sequence of boosted decision trees (AdaBoost).
+	 * The instance weights are kept in a {@link DatasetWeightedView}, the weights stored within the instances are not modified.
+	 * @param resample Whether each tree is trained on a weighted bootstrap sample of the dataset.
+	 * Otherwise each tree is learned directly from the instance weights (weighted entropy, weighted majority),
+	 * which avoids the sampling pass and is deterministic.
+	 * @return The valid models, i.e. models with an error below 0.5.
+	 */
+	public static List<DecisionTreeModel> modelGeneration(DatasetView dataset, int numIterations, EnumAttribute<?> classAttribute, int maxDepth, boolean resample) {
+		return modelGeneration(dataset, numIterations, classAttribute, maxDepth, resample, new SplittableRandom().nextLong());
+	}
+	
+	/**
+	 * Generates a sequence of boosted decision trees (AdaBoost).
+	 * The instance weights are kept in a {@link DatasetWeightedView}, the weights stored within the instances are not modified.
+	 * @param resample Whether each tree is trained on a weighted bootstrap sample of the dataset.
+	 * Otherwise each tree is learned directly from the instance weights (weighted entropy, weighted majority),
+	 * which avoids the sampling pass and is deterministic.
+	 * @param seed The seed of the random number generator for the bootstrap samples, 
+	 * the generated trees only depend on the seed and the dataset.
+	 * @return The valid models, i.e. models with an error below 0.5.
+	 */
+	public static List<DecisionTreeModel> modelGeneration(DatasetView dataset, int numIterations, EnumAttribute<?> classAttribute, int maxDepth, 
+			boolean resample, long seed) {
+		TrainingMetrics metrics = Metrics.start();
+		List<DecisionTreeModel> models = modelGeneration(dataset, numIterations, classAttribute, maxDepth, resample, seed, metrics);
+		if (metrics != null)
+			metrics.finish();
+		return models;
+	}
+	
+	/**
+	 * Generates a sequence of boosted decision trees (AdaBoost) and records the metrics of the run.
+	 * @param metrics Receives the bootstrap time of each round and the metrics of each tree, null to record nothing.
+	 * The run is not finished, so the caller may record more (e.g. its own elapsed time).
+	 * @see #modelGeneration(DatasetView, int, EnumAttribute, int, boolean, long)
+	 */
+	public static List<DecisionTreeModel> modelGeneration(DatasetView dataset, int numIterations, EnumAttribute<?> classAttribute, int maxDepth, 
+			boolean resample, long seed, TrainingMetrics metrics) {
+		SplittableRandom random = new SplittableRandom(seed);
 		List<DecisionTreeModel> models = new ArrayList<>();
-		dataset.assignEqualWeights();
+		DatasetWeightedView weightedSet = new DatasetWeightedView(dataset);
+		weightedSet.assignEqualWeights();
 		for (int i = 0; i < numIterations; i++) {
-			DatasetView sampledSet = dataset.weightedBootstrapSampling();
-			// train and test model on same sampled dataset
-			DecisionTreeModel model = new DecisionTreeModel(maxDepth);
-			model.trainModel(sampledSet, classAttribute);
-			model.testModel(sampledSet, classAttribute);
+			BoostingIterationEvent event = new BoostingIterationEvent();
+			event.begin();
+			DecisionTreeModel model = new DecisionTreeModel(maxDepth).weighted(!resample);
+			int[] predictions = null;
+			long bootstrapNanos = 0L, sampledInstances = 0L;
+			if (resample) {
+				// train and test model on same sampled dataset
+				boolean timed = metrics != null || event.isEnabled();
+				long start = timed? System.nanoTime() : 0L;
+				DatasetView sampledSet = weightedSet.weightedBootstrapSampling(random);
+				if (timed) {
+					bootstrapNanos = System.nanoTime() - start;
+					sampledInstances = sampledSet.numInstances();
+				}
+				if (metrics != null) {
+					metrics.bootstrapRound(bootstrapNanos);
+					Metrics.recordBootstrap(bootstrapNanos);
+				}
+				model.trainModel(sampledSet, classAttribute);
+				model.testModel(sampledSet, classAttribute);
+			} else {
+				// train and test model on the weighted dataset
+				model.trainModel(weightedSet, classAttribute);
+				predictions = model.classifier().classifyAll(weightedSet, classAttribute);
+				model.testModel(new ConfusionMatrix(weightedSet, classAttribute, predictions, true));
+			}
+			if (metrics != null)
+				metrics.merge(model.metrics());
 			float e = model.error();
 			
-			//System.out.println(sampledSet);
-			//System.out.println(model);
-			//System.out.println("Error " + e);
-			//System.out.println("\n");
+			boolean abort = !(e < 0.5f); // abort if error exceeds 0.5 or is NaN (e.g. tested on no instances)
+			if (!abort) {
+				models.add(model); // store valid model
+				if (e != 0.0f) {
+					// recompute and normalize weights
+					if (predictions == null) {
+						predictions = model.classifier().classifyAll(weightedSet, classAttribute);
+					}
+					for (int j = 0; j < predictions.length; j++) {
+						if (predictions[j] == classAttribute.indexOf(weightedSet.instanceAt(j).value(classAttribute)))
+							weightedSet.multiplyWeight(j, e/(1-e));
+					}
+					weightedSet.normalizeWeights();
+				}
+			}
 			
-			// abort if error exceeds 0.5
-			if (e >= 0.5f) {
-				break;
+			event.end();
+			if (event.shouldCommit()) {
+				event.iteration(i)
+					.instances(weightedSet.numInstances())
+					.sampledInstances(sampledInstances)
+					.error(e)
+					.valid(!abort)
+					.bootstrapDuration(bootstrapNanos)
+					.commit();
 			}
-			models.add(model); // store valid model
-			if (e == 0.0f) {
+			if (abort || e == 0.0f) {
 				break;
 			}
-			// recompute and normalize weights
-			Classifier classifier = model.classifier();
-			for (Instance instance : dataset.instances()) {
-				if (classifier.test(instance, classAttribute))
-					instance.multiplyWeight(e/(1-e));
-			}
-			dataset.normalizeWeights();
 		}
 		return models;
 	}
 	
 	
+	/**
+	 * Computes the weight of a model's vote within the forest from the model's classification error.
+	 * @return -log(e/(1-e)), which is positive for e &lt; 0.5 and infinite for e = 0.
+	 */
+	public static float voteWeight(DecisionModel model) {
+		float e = model.error();
+		return (float) -Math.log(e/(1-e));
+	}
+	
+	/**
+	 * Classifies an instance by a weighted vote of the models.
+	 * The vote weights are computed from the model errors on every call, 
+	 * use {@link #classification(Classifier[], float[], Instance, EnumAttribute, float[])} with precomputed weights for repeated classification.
+	 */
 	public static Value<?> classification(List<DecisionTreeModel> models, Instance instance, EnumAttribute<?> classAttribute) {
-		if (models.isEmpty())
-			return classAttribute.values().next();
-		
-		WeightedValues values = new WeightedValues(classAttribute);
+		float[] votes = new float[classAttribute.numValues()];
 		for (DecisionTreeModel model : models) {
-			float e = model.error();
-			Value<?> classValue = model.classify(instance, classAttribute);
-			values.applyToWeight(classValue, (float) -Math.log(e/(1-e)));
+			int ordinal = model.classifier().classifyOrdinal(instance, classAttribute);
+			if (ordinal >= 0)
+				votes[ordinal] += voteWeight(model);
+		}
+		return classAttribute.value(Measures.argMax(votes));
+	}
+	
+	/**
+	 * Classifies an instance by a weighted vote of the models without allocating any objects.
+	 * @param classifiers The classifiers of the models.
+	 * @param voteWeights The precomputed vote weight of each model.
+	 * @param votes Receives the accumulated vote weight of each class value ordinal, must be filled with zeros.
+	 * @return The ordinal of the class value with the maximum vote weight (the first one in case of ties).
+	 * @see #voteWeight(DecisionModel)
+	 */
+	public static int classification(Classifier[] classifiers, float[] voteWeights, Instance instance, EnumAttribute<?> classAttribute, float[] votes) {
+		for (int i = 0; i < classifiers.length; i++) {
+			int ordinal = classifiers[i].classifyOrdinal(instance, classAttribute);
+			if (ordinal >= 0)
+				votes[ordinal] += voteWeights[i];
+		}
+		return Measures.argMax(votes);
+	}
+	
+	/**
+	 * Classifies an instance by a weighted vote of the models, but stops evaluating models as soon as 
+	 * the leading class value can not be overtaken by the remaining votes anymore.
+	 * The prediction is exactly the same as with {@link #classification(Classifier[], float[], Instance, EnumAttribute, float[])},
+	 * since a small tolerance accounts for floating point rounding of the accumulated votes.
+	 * @param classifiers The classifiers of the models, sorted by vote weight in descending order (otherwise the exit is still exact, but happens later).
+	 * @param voteWeights The precomputed vote weight of each model.
+	 * @param remainingWeights remainingWeights[i] is (an upper bound of) the sum of the vote weights of the models i..n-1.
+	 * @param votes Receives the accumulated vote weight of each class value ordinal, must be filled with zeros.
+	 * @return The ordinal of the class value with the maximum vote weight (the first one in case of ties).
+	 */
+	public static int classification(Classifier[] classifiers, float[] voteWeights, float[] remainingWeights,
+			Instance instance, EnumAttribute<?> classAttribute, float[] votes) {
+		float tolerance = 1.0f + 2*(classifiers.length+1)*Math.ulp(1.0f);
+		for (int i = 0; i < classifiers.length; i++) {
+			int ordinal = classifiers[i].classifyOrdinal(instance, classAttribute);
+			if (ordinal >= 0)
+				votes[ordinal] += voteWeights[i];
+			
+			if (i+1 < classifiers.length) {
+				// find the leading and the second class value
+				int lead = Measures.argMax(votes);
+				float second = Float.NEGATIVE_INFINITY;
+				for (int c = 0; c < votes.length; c++) {
+					if (c != lead && votes[c] > second)
+						second = votes[c];
+				}
+				if (votes[lead] > (second + remainingWeights[i+1]) * tolerance)
+					return lead;
+			}
 		}
-		
-		return values.maxWeightedValue();
+		return Measures.argMax(votes);
 	}
 	
 }
@@ -1,38 +1,164 @@
 package uni.ml.learning;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
+import java.util.SplittableRandom;
 
+import lombok.Getter;
 import lombok.RequiredArgsConstructor;
+import lombok.Setter;
+import lombok.experimental.Accessors;
 import uni.ml.dataset.EnumAttribute;
 import uni.ml.dataset.Instance;
 import uni.ml.dataset.Value;
 import uni.ml.dataset.view.DatasetView;
+import uni.ml.metrics.Metrics;
+import uni.ml.metrics.TrainingMetrics;
 import uni.ml.tree.Classifier;
 
 @RequiredArgsConstructor
+@Accessors(fluent=true)
 public class BoostingForestModel extends DecisionModel implements Iterable<DecisionTreeModel> {
 	
 	private List<DecisionTreeModel> models = new ArrayList<>();
 	private final int numIterations, maxDepth;
+	/**
+	 * Whether each tree is trained on a weighted bootstrap sample (default) or directly on the instance weights.
+	 * @see Boosting#modelGeneration(DatasetView, int, EnumAttribute, int, boolean)
+	 */
+	@Getter @Setter
+	private boolean resample = true;
+	/**
+	 * Whether classification stops evaluating trees as soon as the leading class value can not be overtaken anymore.
+	 * The predictions are the same as with full evaluation.
+	 * @see Boosting#classification(Classifier[], float[], float[], Instance, EnumAttribute, float[])
+	 */
+	@Getter @Setter
+	private boolean earlyExit = true;
+	/**
+	 * The seed of the random number generator for the bootstrap samples.
+	 * @see DecisionModel
+	 */
+	@Getter @Setter
+	private long seed = new SplittableRandom().nextLong();
+	/**
+	 * The metrics of the last training run or null if metrics were disabled.
+	 * @see Metrics
+	 */
+	@Getter
+	private TrainingMetrics metrics;
+	private Ensemble ensemble = new Ensemble(models);
+	private final Classifier classifier = new ForestClassifier();
 
+	/**
+	 * The trees sorted by their precomputed vote weights in descending order.
+	 * @author Julian Brummer
+	 *
+	 */
+	static class Ensemble {
+		private final Classifier[] classifiers;
+		private final float[] voteWeights;
+		private final float[] remainingWeights;
+		
+		/**
+		 * @param classifiers The classifiers of the trees.
+		 * @param voteWeights The vote weights of the trees, which must be positive (or positive infinity), 
+		 * since the early exit relies on the remaining votes not decreasing any class value's votes.
+		 * @throws IllegalArgumentException if a vote weight is not positive or NaN.
+		 */
+		public Ensemble(Classifier[] classifiers, float[] voteWeights) {
+			for (float voteWeight : voteWeights) {
+				if (!(voteWeight > 0.0f))
+					throw new IllegalArgumentException("Vote weights must be positive, but got " + voteWeight);
+			}
+			// sort by vote weight in descending order
+			Integer[] order = new Integer[classifiers.length];
+			for (int i = 0; i < order.length; i++) {
+				order[i] = i;
+			}
+			Arrays.sort(order, (i, j) -> Float.compare(voteWeights[j], voteWeights[i]));
+			this.classifiers = new Classifier[classifiers.length];
+			this.voteWeights = new float[classifiers.length];
+			for (int i = 0; i < order.length; i++) {
+				this.classifiers[i] = classifiers[order[i]];
+				this.voteWeights[i] = voteWeights[order[i]];
+			}
+			
+			// sum up the remaining weights and round up to obtain an upper bound
+			remainingWeights = new float[classifiers.length];
+			double remaining = 0.0;
+			for (int i = classifiers.length-1; i >= 0; i--) {
+				remaining += this.voteWeights[i];
+				remainingWeights[i] = Math.nextUp((float) remaining);
+			}
+		}
+		
+		public Ensemble(List<DecisionTreeModel> models) {
+			this(classifiers(models), voteWeights(models));
+		}
+		
+		private static Classifier[] classifiers(List<DecisionTreeModel> models) {
+			Classifier[] classifiers = new Classifier[models.size()];
+			for (int i = 0; i < classifiers.length; i++) {
+				classifiers[i] = models.get(i).classifier();
+			}
+			return classifiers;
+		}
+		
+		private static float[] voteWeights(List<DecisionTreeModel> models) {
+			float[] voteWeights = new float[models.size()];
+			for (int i = 0; i < voteWeights.length; i++) {
+				voteWeights[i] = Boosting.voteWeight(models.get(i));
+			}
+			return voteWeights;
+		}
+		
+		public int classify(Instance instance, EnumAttribute<?> classAttribute, float[] votes, boolean earlyExit) {
+			return earlyExit? Boosting.classification(classifiers, voteWeights, remainingWeights, instance, classAttribute, votes)
+							: Boosting.classification(classifiers, voteWeights, instance, classAttribute, votes);
+		}
+	}
 	
 	/**
 	 * To classify an instance of a dataset with a decision forest. 
+	 * Votes are accumulated in a primitive array indexed by class value ordinal.
 	 * @author Julian Brummer
 	 *
 	 */
 	private class ForestClassifier implements Classifier {
 		
+		@Override
+		public int classifyOrdinal(Instance instance, EnumAttribute<?> classAttribute) {
+			return ensemble.classify(instance, classAttribute, new float[classAttribute.numValues()], earlyExit);
+		}
+		
 		@Override
 		public Value<?> classify(Instance instance, EnumAttribute<?> classAttribute) {
-			return Boosting.classification(models, instance, classAttribute);
+			return classAttribute.value(classifyOrdinal(instance, classAttribute));
+		}
+		
+		@Override
+		public void classifyRange(DatasetView dataset, EnumAttribute<?> classAttribute, int from, int to, int[] predictions) {
+			Ensemble ensemble = BoostingForestModel.this.ensemble;
+			float[] votes = new float[classAttribute.numValues()]; // reused for all instances of the range
+			for (int i = from; i < to; i++) {
+				predictions[i] = ensemble.classify(dataset.instanceAt(i), classAttribute, votes, earlyExit);
+				Arrays.fill(votes, 0.0f);
+			}
 		}
 	}
 
+	/**
+	 * Adds a trained model to the forest, its vote weight is computed from its current error.
+	 * @throws IllegalArgumentException if the error is not below 0.5, i.e. the vote weight would not be positive.
+	 */
 	public void add(DecisionTreeModel model) {
+		if (!(Boosting.voteWeight(model) > 0.0f))
+			throw new IllegalArgumentException("Only models with an error below 0.5 can be added, but the error is " + model.error());
 		models.add(model);
+		ensemble = new Ensemble(models);
 	}
 	
 	public boolean hasModels() {
@@ -51,12 +177,27 @@ public class BoostingForestModel extends DecisionModel implements Iterable<Decis
 	@Override
 	public void trainModel(DatasetView examples, EnumAttribute<?> classAttribute) {
 		models.clear();
-		models.addAll(Boosting.modelGeneration(examples, numIterations, classAttribute, maxDepth));
+		metrics = Metrics.start();
+		models.addAll(Boosting.modelGeneration(examples, numIterations, classAttribute, maxDepth, resample, seed, metrics));
+		if (metrics != null)
+			metrics.finish();
+		ensemble = new Ensemble(models);
 	}
 
 	@Override
 	public Classifier classifier() {
-		return new ForestClassifier();
+		return classifier;
+	}
+	
+	/**
+	 * Compacts the forest into a {@link CompiledModel}, in which identical subtrees of all trees are shared.
+	 * The compiled model classifies exactly like this forest (with early exit), 
+	 * but needs only a single int array instead of an object graph per tree.
+	 * @param header The dataset(-view) the model was trained on. Only the attributes are used.
+	 * @param classAttribute The classification/target attribute.
+	 */
+	public CompiledModel compact(DatasetView header, EnumAttribute<?> classAttribute) {
+		return CompiledModel.compile(this, header, classAttribute);
 	}
 	
 	@Override
@@ -0,0 +1,171 @@
+package uni.ml.learning;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import lombok.Getter;
+import lombok.experimental.Accessors;
+import uni.ml.dataset.EnumAttribute;
+import uni.ml.dataset.Instance;
+import uni.ml.dataset.Value;
+import uni.ml.dataset.view.DatasetView;
+import uni.ml.tree.Classifier;
+import uni.ml.tree.NodeArray;
+
+/**
+ * A trained decision tree or weighted forest stored as a flat {@link NodeArray} instead of an object graph.
+ * Identical subtrees of all trees are stored only once.
+ * A compiled model can not be trained, it is created from a trained model or loaded from a model file.
+ * @see ModelFile
+ * @author Julian Brummer
+ *
+ */
+@Accessors(fluent=true)
+public class CompiledModel extends DecisionModel {
+
+	@Getter
+	private final NodeArray nodes;
+	@Getter
+	private final EnumAttribute<?> classAttribute;
+	private final int[] roots;
+	private final float[] weights;
+	private final BoostingForestModel.Ensemble ensemble;
+	private final Classifier classifier = new CompiledClassifier();
+
+	/**
+	 * Classifies an instance by a weighted vote of all trees, evaluating the trees with the highest vote weight first
+	 * and stopping as soon as the leading class value can not be overtaken anymore.
+	 * @author Julian Brummer
+	 *
+	 */
+	private class CompiledClassifier implements Classifier {
+
+		@Override
+		public int classifyOrdinal(Instance instance, EnumAttribute<?> classAttribute) {
+			if (roots.length == 1)
+				return nodes.classifyOrdinal(roots[0], instance);
+			return ensemble.classify(instance, classAttribute, new float[CompiledModel.this.classAttribute.numValues()], true);
+		}
+
+		@Override
+		public Value<?> classify(Instance instance, EnumAttribute<?> classAttribute) {
+			return CompiledModel.this.classAttribute.value(classifyOrdinal(instance, classAttribute));
+		}
+		
+		@Override
+		public void classifyRange(DatasetView dataset, EnumAttribute<?> classAttribute, int from, int to, int[] predictions) {
+			float[] votes = new float[CompiledModel.this.classAttribute.numValues()]; // reused for all instances of the range
+			for (int i = from; i < to; i++) {
+				if (roots.length == 1) {
+					predictions[i] = nodes.classifyOrdinal(roots[0], dataset.instanceAt(i));
+				} else {
+					predictions[i] = ensemble.classify(dataset.instanceAt(i), classAttribute, votes, true);
+					Arrays.fill(votes, 0.0f);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Creates a compiled model.
+	 * @param nodes The encoded trees.
+	 * @param classAttribute The classification/target attribute.
+	 * @param roots The pointers to the root of each tree.
+	 * @param weights The positive vote weight of each tree.
+	 */
+	public CompiledModel(NodeArray nodes, EnumAttribute<?> classAttribute, int[] roots, float[] weights) {
+		if (roots.length == 0 || roots.length != weights.length)
+			throw new IllegalArgumentException("A compiled model requires at least one tree and a weight per tree");
+		this.nodes = nodes;
+		this.classAttribute = classAttribute;
+		this.roots = roots;
+		this.weights = weights;
+		Classifier[] classifiers = new Classifier[roots.length];
+		for (int i = 0; i < roots.length; i++) {
+			classifiers[i] = nodes.classifier(roots[i], classAttribute);
+		}
+		this.ensemble = new BoostingForestModel.Ensemble(classifiers, weights);
+	}
+
+	/**
+	 * @return The attributes of the dataset(-view) including the classAttribute.
+	 */
+	private static List<EnumAttribute<?>> dictionary(DatasetView header) {
+		List<EnumAttribute<?>> attributes = new ArrayList<>();
+		header.attributes().forEach(attributes::add);
+		return attributes;
+	}
+
+	/**
+	 * Compiles a trained decision tree.
+	 * @param header The dataset(-view) the model was trained on. Only the attributes are used.
+	 * @param classAttribute The classification/target attribute.
+	 */
+	public static CompiledModel compile(DecisionTreeModel model, DatasetView header, EnumAttribute<?> classAttribute) {
+		NodeArray.Builder builder = new NodeArray.Builder(dictionary(header), classAttribute);
+		int root = builder.add(model.root());
+		return new CompiledModel(builder.build(), classAttribute, new int[] {root}, new float[] {1.0f});
+	}
+
+	/**
+	 * Compiles a trained boosting forest.
+	 * @param header The dataset(-view) the model was trained on. Only the attributes are used.
+	 * @param classAttribute The classification/target attribute.
+	 */
+	public static CompiledModel compile(BoostingForestModel model, DatasetView header, EnumAttribute<?> classAttribute) {
+		if (!model.hasModels())
+			throw new IllegalArgumentException("The forest has not been trained");
+		NodeArray.Builder builder = new NodeArray.Builder(dictionary(header), classAttribute);
+		int[] roots = new int[model.numModels()];
+		float[] weights = new float[model.numModels()];
+		int i = 0;
+		for (DecisionTreeModel tree : model) {
+			roots[i] = builder.add(tree.root());
+			weights[i] = Boosting.voteWeight(tree);
+			i++;
+		}
+		return new CompiledModel(builder.build(), classAttribute, roots, weights);
+	}
+
+	/**
+	 * @return The number of trees.
+	 */
+	public int numTrees() {
+		return roots.length;
+	}
+
+	/**
+	 * @return The pointer to the root of the i-th tree.
+	 */
+	public int root(int i) {
+		return roots[i];
+	}
+
+	/**
+	 * @return The vote weight of the i-th tree.
+	 */
+	public float weight(int i) {
+		return weights[i];
+	}
+
+	/**
+	 * A compiled model can not be trained.
+	 * @throws UnsupportedOperationException always
+	 */
+	@Override
+	public void trainModel(DatasetView examples, EnumAttribute<?> classAttribute) {
+		throw new UnsupportedOperationException("A compiled model can not be trained");
+	}
+
+	@Override
+	public Classifier classifier() {
+		return classifier;
+	}
+
+	@Override
+	public String toString() {
+		return "CompiledModel(trees=" + numTrees() + ", nodes=" + nodes.size() + ")";
+	}
+
+}
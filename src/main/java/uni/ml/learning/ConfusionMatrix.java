@@ -0,0 +1,167 @@
+package uni.ml.learning;
+
+import lombok.Getter;
+import lombok.experimental.Accessors;
+import uni.ml.dataset.EnumAttribute;
+import uni.ml.dataset.view.DatasetView;
+
+/**
+ * Counts the actual class values against the values predicted by a classifier.
+ * The entry at (actual, predicted) stores the number of instances of class <code>actual</code>
+ * that were classified as class <code>predicted</code>.
+ * Predictions that are not a valid class value (ordinal -1) are counted as misclassified, but do not appear within the matrix.
+ * @author Julian Brummer
+ *
+ */
+@Accessors(fluent=true)
+public class ConfusionMatrix {
+
+	@Getter
+	private final EnumAttribute<?> classAttribute;
+	/**
+	 * The exact (unweighted) counts.
+	 */
+	private final long[][] counts;
+	private long numInstances;
+	private long numCorrect;
+	/**
+	 * The sums of the weights of weighted results, or null if there are none.
+	 */
+	private double[][] weightedCounts;
+	private double weightedNumInstances;
+	private double weightedNumCorrect;
+
+	/**
+	 * Creates an empty confusion matrix for the values of the classAttribute.
+	 */
+	public ConfusionMatrix(EnumAttribute<?> classAttribute) {
+		this.classAttribute = classAttribute;
+		int n = classAttribute.numValues();
+		this.counts = new long[n][n];
+	}
+
+	/**
+	 * Creates the confusion matrix of a batch classification result.
+	 * @param testSet The classified dataset(-view).
+	 * @param predictions The predicted class ordinals for each instance of the test set.
+	 * @see uni.ml.tree.Classifier#classifyAll(DatasetView, EnumAttribute)
+	 */
+	public ConfusionMatrix(DatasetView testSet, EnumAttribute<?> classAttribute, int[] predictions) {
+		this(testSet, classAttribute, predictions, false);
+	}
+
+	/**
+	 * Creates the confusion matrix of a batch classification result.
+	 * @param testSet The classified dataset(-view).
+	 * @param predictions The predicted class ordinals for each instance of the test set.
+	 * Each instance is counted with its multiplicity.
+	 * @param weighted Whether to count each instance with its weight instead of once.
+	 * @see DatasetView#weightAt(int)
+	 */
+	public ConfusionMatrix(DatasetView testSet, EnumAttribute<?> classAttribute, int[] predictions, boolean weighted) {
+		this(classAttribute);
+		for (int i = 0; i < predictions.length; i++) {
+			int actual = classAttribute.indexOf(testSet.instanceAt(i).value(classAttribute));
+			if (weighted) {
+				add(actual, predictions[i], (double) testSet.weightAt(i) * testSet.multiplicityAt(i));
+			} else {
+				add(actual, predictions[i], (long) testSet.multiplicityAt(i));
+			}
+		}
+	}
+
+	/**
+	 * Adds a classification result for a number of identical instances.
+	 * @param actual The ordinal of the actual class value.
+	 * @param predicted The ordinal of the predicted class value.
+	 * @param count The number of classified instances.
+	 */
+	public void add(int actual, int predicted, long count) {
+		numInstances += count;
+		if (predicted < 0)
+			return;
+		if (actual >= 0)
+			counts[actual][predicted] += count;
+		if (actual == predicted)
+			numCorrect += count;
+	}
+
+	/**
+	 * Adds a single weighted classification result.
+	 * @param actual The ordinal of the actual class value.
+	 * @param predicted The ordinal of the predicted class value.
+	 * @param weight The weight of the classified instance.
+	 */
+	public void add(int actual, int predicted, double weight) {
+		weightedNumInstances += weight;
+		if (predicted < 0)
+			return;
+		if (actual >= 0) {
+			if (weightedCounts == null)
+				weightedCounts = new double[counts.length][counts.length];
+			weightedCounts[actual][predicted] += weight;
+		}
+		if (actual == predicted)
+			weightedNumCorrect += weight;
+	}
+
+	/**
+	 * @return The (weighted) number of instances of the actual class that were classified as the predicted class.
+	 */
+	public double count(int actual, int predicted) {
+		return counts[actual][predicted] + (weightedCounts != null? weightedCounts[actual][predicted] : 0.0);
+	}
+
+	/**
+	 * @return The (weighted) number of classified instances.
+	 */
+	public double numInstances() {
+		return numInstances + weightedNumInstances;
+	}
+
+	/**
+	 * @return The (weighted) number of correctly classified instances.
+	 */
+	public double numCorrect() {
+		return numCorrect + weightedNumCorrect;
+	}
+
+	/**
+	 * @return The number of classes, i.e. the number of rows/columns of the matrix.
+	 */
+	public int numClasses() {
+		return counts.length;
+	}
+
+	/**
+	 * @return The percentage of correctly classified instances.
+	 */
+	public float accuracy() {
+		return (float) (numCorrect()/numInstances());
+	}
+
+	/**
+	 * @return The percentage of misclassified instances.
+	 */
+	public float error() {
+		return 1.0f - accuracy();
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder b = new StringBuilder();
+		for (int i = 0; i < numClasses(); i++) {
+			b.append(classAttribute.value(i).arffString()).append(":");
+			for (int j = 0; j < numClasses(); j++) {
+				b.append(" ");
+				if (weightedCounts == null) {
+					b.append(counts[i][j]);
+				} else {
+					b.append(count(i, j));
+				}
+			}
+			b.append("\n");
+		}
+		return b.toString();
+	}
+}
@@ -2,6 +2,11 @@ package uni.ml.learning;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.LongFunction;
 
 import lombok.Getter;
 import lombok.experimental.Accessors;
@@ -12,7 +17,16 @@ import uni.ml.dataset.view.DatasetIndexedView;
 import uni.ml.dataset.view.DatasetSplit;
 import uni.ml.dataset.view.DatasetView;
 import uni.ml.tree.Classifier;
+import uni.ml.util.Tasks;
 
+/**
+ * The base class of all decision models.
+ * Models with randomness (e.g. forests) draw it from a seed, so the trained model only depends on the seed 
+ * and the training set and not on the scheduling of any parallel work. 
+ * Evaluations that train several models derive the seeds from a single seed to keep this guarantee.
+ * @author Julian Brummer
+ *
+ */
 @Accessors(fluent=true)
 public abstract class DecisionModel {
 	
@@ -29,7 +43,10 @@ public abstract class DecisionModel {
 	public abstract void trainModel(DatasetView examples, EnumAttribute<?> classAttribute);
 	
 	/**
-	 * @return The classifier of this model.
+	 * Returns the classifier of this model.
+	 * Implementations should return a shared instance instead of allocating a new one on every call.
+	 * @return The stateless, thread-safe classifier of this model.
+	 * @see Classifier
 	 */
 	public abstract Classifier classifier();
 	
@@ -69,34 +86,61 @@ public abstract class DecisionModel {
 	 * @see error()
 	 */
 	public float testModel(DatasetView testSet, EnumAttribute<?> classAttribute) {
-		Classifier classifier = classifier();
-		float correctlyClassified = 0.0f;
-		
-		for (Instance instance : testSet.instances()) {
-			if (classifier.test(instance, classAttribute)) {
-				correctlyClassified += 1.0f;
-			}
-		}
-		correctlyClassified /= testSet.numInstances();
+		return testModel(confusionMatrix(testSet, classAttribute));
+	}
+	
+	/**
+	 * Tests the model with a test dataset, which is classified in parallel on the specified pool.
+	 * This also updates the classification error of this model.
+	 * @param testSet The dataset to test the model.
+	 * @return The percentage of correctly classified instances.
+	 * @see error()
+	 */
+	public float testModel(DatasetView testSet, EnumAttribute<?> classAttribute, ForkJoinPool pool) {
+		return testModel(confusionMatrix(testSet, classAttribute, pool));
+	}
+	
+	/**
+	 * Tests the model with a weighted test dataset, i.e. the error is the weight of the misclassified instances
+	 * divided by the sum of all weights.
+	 * This also updates the classification error of this model.
+	 * @param testSet The dataset to test the model.
+	 * @param weighted Whether to count each instance with its weight instead of once.
+	 * @return The (weighted) percentage of correctly classified instances.
+	 * @see DatasetView#weightAt(int)
+	 */
+	public float testModel(DatasetView testSet, EnumAttribute<?> classAttribute, boolean weighted) {
+		return testModel(new ConfusionMatrix(testSet, classAttribute, classifier().classifyAll(testSet, classAttribute), weighted));
+	}
+	
+	/**
+	 * Updates the classification error of this model from an already computed test result.
+	 * @param confusionMatrix The result of classifying a test set with this model.
+	 * @return The percentage of correctly classified instances.
+	 */
+	public float testModel(ConfusionMatrix confusionMatrix) {
+		float correctlyClassified = confusionMatrix.accuracy();
 		error = 1.0f - correctlyClassified;
 		return correctlyClassified;
 	}
 	
-	/*	public float testModel(DatasetView testSet, EnumAttribute<?> classAttribute) {
-	Classifier classifier = classifier();
-	float correctlyClassified = 0.0f;
-	float classified = 0.0f;
+	/**
+	 * Classifies all instances of the test dataset in a single batch.
+	 * @param testSet The dataset to test the model.
+	 * @return The confusion matrix of the test set.
+	 */
+	public ConfusionMatrix confusionMatrix(DatasetView testSet, EnumAttribute<?> classAttribute) {
+		return new ConfusionMatrix(testSet, classAttribute, classifier().classifyAll(testSet, classAttribute));
+	}
 	
-	for (Instance instance : testSet.instances()) {
-		if (classifier.test(instance, classAttribute)) {
-			correctlyClassified += instance.weight();
-		}
-		classified += instance.weight();
+	/**
+	 * Classifies all instances of the test dataset in parallel on the specified pool.
+	 * @param testSet The dataset to test the model.
+	 * @return The confusion matrix of the test set.
+	 */
+	public ConfusionMatrix confusionMatrix(DatasetView testSet, EnumAttribute<?> classAttribute, ForkJoinPool pool) {
+		return new ConfusionMatrix(testSet, classAttribute, classifier().classifyAll(testSet, classAttribute, pool));
 	}
-	correctlyClassified /= classified;
-	error = 1.0f - correctlyClassified;
-	return correctlyClassified;
-}*/
 	
 	/**
 	 * Trains and tests a decision tree model a number of times.
@@ -116,6 +160,37 @@ public abstract class DecisionModel {
 		return Measures.meanDev(classification);
 	}
 	
+	/**
+	 * Trains and tests decision models a number of times in parallel (repeated holdout).
+	 * Each repeat trains a new model created by the factory on its own random split. The split and the seed of the model are drawn 
+	 * from a random number generator split off from a generator with the specified seed and the results are aggregated in repeat order.
+	 * @param modelFactory Creates a new (untrained) decision model for each repeat from the seed of the repeat, 
+	 * which must be used as the seed of models with randomness (e.g. forests).
+	 * @param dataset The dataset to train and test the models with. The dataset is split randomly into a training and test set. 
+	 * @param trainingRatio The ratio of the dataset to use for training.
+	 * @param repeats The number of training and test cycles.
+	 * @param classAttribute The target/classification attribute.
+	 * @param seed The seed of the random number generator.
+	 * @param executor The executor to run the repeats on.
+	 * @return The mean and standard deviation of correctly classified instances.
+	 */
+	public static ClassificationResult trainAndTestModel(LongFunction<? extends DecisionModel> modelFactory, DatasetView dataset, float trainingRatio, 
+			int repeats, EnumAttribute<?> classAttribute, long seed, ExecutorService executor) {
+		SplittableRandom random = new SplittableRandom(seed);
+		List<Callable<Float>> tasks = new ArrayList<>();
+		for (int i = 0; i < repeats; i++) {
+			SplittableRandom repeatRandom = random.split();
+			tasks.add(() -> {
+				DatasetSplit split = dataset.randomSplit(trainingRatio, repeatRandom);
+				DecisionModel model = modelFactory.apply(repeatRandom.nextLong());
+				model.trainModel(split.trainingSet, classAttribute);
+				return model.testModel(split.testSet, classAttribute);
+			});
+		}
+		
+		return Measures.meanDev(Tasks.invokeAllOrdered(executor, tasks, "repeated holdout"));
+	}
+	
 	/**
 	 * Convenience method to print a decision model.
 	 * @param root The root node of the tree to print.
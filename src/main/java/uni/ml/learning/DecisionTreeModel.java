@@ -1,53 +1,103 @@
 package uni.ml.learning;
 
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.function.ToDoubleFunction;
 
+import lombok.Getter;
 import lombok.RequiredArgsConstructor;
+import lombok.Setter;
+import lombok.experimental.Accessors;
 import uni.ml.dataset.EnumAttribute;
 import uni.ml.dataset.Instance;
 import uni.ml.dataset.Value;
 import uni.ml.dataset.view.DatasetPredicateView;
 import uni.ml.dataset.view.DatasetView;
+import uni.ml.metrics.Metrics;
+import uni.ml.metrics.NodeSplitEvent;
+import uni.ml.metrics.TrainingMetrics;
 import uni.ml.tree.Classifier;
 import uni.ml.tree.InnerNode;
 import uni.ml.tree.Leaf;
 import uni.ml.tree.Node;
-import uni.ml.tree.NodeVisitor;
 import uni.ml.tree.TreeStringBuilder;
 
 @RequiredArgsConstructor
+@Accessors(fluent=true)
 public class DecisionTreeModel extends DecisionModel {
 
 	private Node root;
 	private final int maxDepth;
+	/**
+	 * Whether the tree is learned from the instance weights (weighted entropy, weighted majority) 
+	 * instead of the number of instances.
+	 * @see DatasetView#weightAt(int)
+	 */
+	@Getter @Setter
+	private boolean weighted;
+	/**
+	 * The number of randomly chosen candidate attributes, from which the decision attribute of each node is selected.
+	 * 0 (default) considers all remaining attributes.
+	 */
+	@Getter @Setter
+	private int attributeSubsetSize;
+	/**
+	 * The seed for choosing the random candidate attributes.
+	 * @see #attributeSubsetSize()
+	 */
+	@Getter @Setter
+	private long seed;
+	/**
+	 * The metrics of the last training run or null if metrics were disabled.
+	 * @see Metrics
+	 */
+	@Getter
+	private TrainingMetrics metrics;
+	private final Classifier classifier = new TreeClassifier();
 	
 	/**
 	 * To classify an instance of a dataset with a decision tree. 
 	 * @author Julian Brummer
 	 *
 	 */
-	private class TreeClassifier implements Classifier, NodeVisitor {
-
-		private Instance testInstance;
-		private Value<?> classValue;
+	private class TreeClassifier implements Classifier {
 		
 		@Override
-		public void visit(InnerNode node) {
-			Value<?> decisionValue = testInstance.value(node.decisionAttribute());
-			node.child(decisionValue).accept(this);
-		}
-
-		@Override
-		public void visit(Leaf node) {
-			classValue = node.value();
+		public Value<?> classify(Instance instance, EnumAttribute<?> classAttribute) {
+			Node node = root;
+			while (node instanceof InnerNode) {
+				InnerNode innerNode = (InnerNode) node;
+				node = innerNode.child(instance.value(innerNode.decisionAttribute()));
+			}
+			return ((Leaf) node).value();
 		}
+	}
+	
+	/**
+	 * To classify an instance with the decision tree truncated at a certain depth.
+	 * Inner nodes at that depth predict their majority value instead of descending further.
+	 * @author Julian Brummer
+	 *
+	 */
+	@RequiredArgsConstructor
+	private class TruncatedTreeClassifier implements Classifier {
+		
+		private final int depth;
 		
 		@Override
 		public Value<?> classify(Instance instance, EnumAttribute<?> classAttribute) {
-			testInstance = instance;
-			root.accept(this);
-			return classValue;
+			Node node = root;
+			int nodeDepth = 1;
+			while (node instanceof InnerNode) {
+				InnerNode innerNode = (InnerNode) node;
+				if (nodeDepth >= depth)
+					return innerNode.majorityValue();
+				node = innerNode.child(instance.value(innerNode.decisionAttribute()));
+				nodeDepth++;
+			}
+			return ((Leaf) node).value();
 		}
 	}
 	
@@ -55,11 +105,29 @@ public class DecisionTreeModel extends DecisionModel {
 	 * Selects the partition attribute resulting in the maximum information gain.
 	 */
 	public static EnumAttribute<?> selectPartitionAttribute(DatasetView dataset, EnumAttribute<?> classAttribute, Set<EnumAttribute<?>> attributes) {
+		return selectPartitionAttribute(dataset, classAttribute, attributes, false);
+	}
+	
+	/**
+	 * Selects the partition attribute resulting in the maximum information gain.
+	 * @param weighted Whether to compute the information gain from the instance weights instead of the number of instances.
+	 */
+	public static EnumAttribute<?> selectPartitionAttribute(DatasetView dataset, EnumAttribute<?> classAttribute, Set<EnumAttribute<?>> attributes, boolean weighted) {
+		return selectPartitionAttribute(attributes, attribute -> informationGain(dataset, classAttribute, attribute, weighted));
+	}
+	
+	/**
+	 * Selects the partition attribute resulting in the maximum information gain.
+	 * @param informationGain Computes the information gain of splitting at an attribute, 
+	 * e.g. from counts maintained across cross validation folds.
+	 * @see Measures#informationGain(long[][])
+	 */
+	public static EnumAttribute<?> selectPartitionAttribute(Set<EnumAttribute<?>> attributes, ToDoubleFunction<EnumAttribute<?>> informationGain) {
 		EnumAttribute<?> partitionAttribute = null;
-		float maxGain = Float.NEGATIVE_INFINITY;
+		double maxGain = Double.NEGATIVE_INFINITY;
 		// iterate over attributes and check information gain using the attribute as a partitioner
 		for (EnumAttribute<?> attribute : attributes) {
-			float gain = Measures.informationGain(dataset, classAttribute, attribute);
+			double gain = informationGain.applyAsDouble(attribute);
 			if (gain > maxGain) {
 				maxGain = gain;
 				partitionAttribute = attribute;
@@ -68,39 +136,120 @@ public class DecisionTreeModel extends DecisionModel {
 		return partitionAttribute;
 	}
 	
+	/**
+	 * Computes the information gain from the number of instances or the instance weights.
+	 */
+	private static float informationGain(DatasetView dataset, EnumAttribute<?> classAttribute, EnumAttribute<?> splitAttribute, boolean weighted) {
+		return weighted? Measures.weightedInformationGain(dataset, classAttribute, splitAttribute) 
+				: Measures.informationGain(dataset, classAttribute, splitAttribute);
+	}
+	
+	/**
+	 * Randomly chooses attributeSubsetSize attributes as candidates for the decision attribute of a node.
+	 * @return The chosen attributes or all attributes, if attributeSubsetSize is 0 or exceeds the number of attributes.
+	 */
+	private Set<EnumAttribute<?>> candidateAttributes(Set<EnumAttribute<?>> attributes, SplittableRandom random) {
+		if (attributeSubsetSize <= 0 || attributeSubsetSize >= attributes.size())
+			return attributes;
+		
+		// partial Fisher-Yates shuffle
+		EnumAttribute<?>[] candidates = attributes.toArray(new EnumAttribute<?>[attributes.size()]);
+		Set<EnumAttribute<?>> subset = new LinkedHashSet<>();
+		for (int i = 0; i < attributeSubsetSize; i++) {
+			int j = i + random.nextInt(candidates.length - i);
+			EnumAttribute<?> candidate = candidates[j];
+			candidates[j] = candidates[i];
+			candidates[i] = candidate;
+			subset.add(candidate);
+		}
+		return subset;
+	}
+	
 	/**
 	 * Recursively creates a decision (sub-)tree from an example set. 
 	 * @param examples The dataset or a view on a subset.
 	 * @param classAttribute The classification/target attribute.
 	 * @param attributes A list of attributes from which to select a decision attribute for this node.  
+	 * @param decisionAttribute The decision attribute of this node if it is already known, otherwise null.
 	 * @return The root node of the (sub-)tree.
 	 */
-	private Node trainModel(DatasetView examples, EnumAttribute<?> classAttribute, Set<EnumAttribute<?>> attributes, int depth) {
+	private Node trainModel(DatasetView examples, EnumAttribute<?> classAttribute, Set<EnumAttribute<?>> attributes, int depth, SplittableRandom random, 
+			EnumAttribute<?> decisionAttribute) {
+		Value<?> mostCommonValue;
+		boolean pure;
+		if (weighted) {
+			double[] classCounts = Measures.weightedClassCounts(examples, classAttribute);
+			mostCommonValue = classAttribute.value(Measures.argMax(classCounts));
+			pure = Measures.entropy(classCounts) == 0;
+		} else {
+			long[] classCounts = Measures.classCounts(examples, classAttribute);
+			mostCommonValue = classAttribute.value(Measures.argMax(classCounts));
+			pure = Measures.entropy(classCounts) == 0;
+		}
+		if (metrics != null) {
+			metrics.scan(examples.numInstances());
+			metrics.nodeBuilt(depth);
+		}
 	
-		if (Measures.entropy(examples, classAttribute) == 0) // all instances have the same value for the target attribute
-			return new Leaf(examples.instanceAt(0).value(classAttribute)); // return a leaf with that value
+		if (pure) // all instances have the same value for the target attribute
+			return new Leaf(mostCommonValue); // return a leaf with that value
 		
 		if (attributes.isEmpty() || depth == maxDepth) // return most common value if there are no more attributes to split on
-			return new Leaf(Measures.mostCommonValue(examples, classAttribute));
+			return new Leaf(mostCommonValue);
 	
 		// splitting is possible, so we create an inner node and select the best partition attribute
 		InnerNode node = new InnerNode();
-		node.decisionAttribute(selectPartitionAttribute(examples, classAttribute, attributes));
+		node.majorityValue(mostCommonValue);
+		NodeSplitEvent event = new NodeSplitEvent();
+		event.begin();
+		int numCandidates = 0;
+		if (decisionAttribute == null) {
+			Set<EnumAttribute<?>> candidates = candidateAttributes(attributes, random);
+			numCandidates = candidates.size();
+			long start = metrics != null? System.nanoTime() : 0L;
+			decisionAttribute = selectPartitionAttribute(examples, classAttribute, candidates, weighted);
+			if (metrics != null)
+				metrics.splitSelection(System.nanoTime() - start, (long) numCandidates * examples.numInstances());
+		}
+		node.decisionAttribute(decisionAttribute);
+		event.end();
 		
 		// iterate over values of the decision attribute
+		boolean timed = metrics != null || event.isEnabled();
+		long partitioningNanos = 0L;
 		for (Value<?> value : node.decisionAttribute()) {
 			// select subset containing only instances with the same decision value
+			long start = timed? System.nanoTime() : 0L;
 			DatasetView subset = DatasetPredicateView.selectInstances(examples, node.decisionAttribute(), value);
-			if (subset.hasInstances()) {
+			if (timed) {
+				long nanos = System.nanoTime() - start;
+				partitioningNanos += nanos;
+				if (metrics != null)
+					metrics.partitioning(nanos, examples.numInstances());
+			}
+			if (weighted? subset.sumWeights() > 0 : subset.hasInstances()) {
 				// remove decision attribute and build subtree
 				Set<EnumAttribute<?>> remainingAttributes = new HashSet<>(attributes);
 				remainingAttributes.remove(node.decisionAttribute());
-				node.addChild(value, trainModel(subset, classAttribute, remainingAttributes, depth+1));
+				node.addChild(value, trainModel(subset, classAttribute, remainingAttributes, depth+1, random, null));
 			} else {
-				node.addChild(value, new Leaf(Measures.mostCommonValue(examples, classAttribute)));
+				node.addChild(value, new Leaf(mostCommonValue));
+				if (metrics != null)
+					metrics.nodeBuilt(depth+1);
 			}
 		}
 		
+		if (event.shouldCommit()) {
+			// the gain is only recomputed while recording
+			event.depth(depth)
+				.instances(examples.numInstances())
+				.candidates(numCandidates)
+				.attribute(decisionAttribute.name())
+				.gain(informationGain(examples, classAttribute, decisionAttribute, weighted))
+				.partitioningDuration(partitioningNanos)
+				.commit();
+		}
+		
 		return node;
 	}
 	
@@ -114,15 +263,51 @@ public class DecisionTreeModel extends DecisionModel {
 	 */
 	@Override
 	public void trainModel(DatasetView examples, EnumAttribute<?> classAttribute) {
-		this.root = trainModel(examples, classAttribute, examples.attributeSet(classAttribute), 1);
+		trainModel(examples, classAttribute, (EnumAttribute<?>) null);
 	}
 	
 	/**
-	 * @return The classifier of this model.
+	 * Creates a decision tree from a full example set with a predetermined decision attribute at the root,
+	 * e.g. selected from class counts maintained across cross validation folds.
+	 * If that attribute is the one with the maximum information gain, the tree is the same as the one created by 
+	 * {@link #trainModel(DatasetView, EnumAttribute)} (unless random candidate attributes are used).
+	 * @param examples The dataset to create the decision tree from.
+	 * @param classAttribute The classification/target attribute. 
+	 * @param rootAttribute The decision attribute of the root, if the root is not a leaf (null to select it).
 	 */
+	public void trainModel(DatasetView examples, EnumAttribute<?> classAttribute, EnumAttribute<?> rootAttribute) {
+		this.metrics = Metrics.start();
+		this.root = trainModel(examples, classAttribute, examples.attributeSet(classAttribute), 1, new SplittableRandom(seed), rootAttribute);
+		if (metrics != null) {
+			metrics.finishTree();
+			Metrics.recordTree(metrics);
+		}
+	}
+	
+	/**
+	 * @return The root node of the decision tree or null if the model has not been trained.
+	 */
+	public Node root() {
+		return root;
+	}
+	
+	/**
+	 * Returns a classifier for the decision tree truncated at the specified depth.
+	 * Since every inner node stores the majority value of its training instances, the truncated tree classifies
+	 * exactly like a tree trained with maxDepth = depth on the same examples, as long as all candidate attributes are
+	 * considered at each node (attributeSubsetSize 0).
+	 * @param depth The maximum depth of the truncated tree (the root has depth 1).
+	 * @return The classifier of the truncated tree.
+	 */
+	public Classifier classifier(int depth) {
+		if (maxDepth > 0 && depth >= maxDepth) // the tree is not deeper than requested (maxDepth <= 0 means unbounded)
+			return classifier;
+		return new TruncatedTreeClassifier(depth);
+	}
+	
 	@Override
 	public Classifier classifier() {
-		return new TreeClassifier();
+		return classifier;
 	}
 	
 	@Override
@@ -0,0 +1,186 @@
+package uni.ml.learning;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import lombok.Getter;
+import lombok.experimental.Accessors;
+import uni.ml.dataset.EnumAttribute;
+import uni.ml.dataset.Instance;
+import uni.ml.dataset.Value;
+import uni.ml.dataset.view.DatasetView;
+import uni.ml.tree.Classifier;
+
+/**
+ * Decorates a decision model with a dense lookup table.
+ * After training the decorated model, the prediction for every combination of attribute values is precomputed,
+ * if the product of all attribute domain sizes does not exceed the maximum table size.
+ * The table is indexed by the mixed-radix code of the attribute value ordinals,
+ * so classification becomes a single array read regardless of the size of the decorated model.
+ * If the domain is too large, the decorated model is used for classification instead.
+ * @author Julian Brummer
+ *
+ */
+@Accessors(fluent=true)
+public class LookupTableModel extends DecisionModel {
+
+	/**
+	 * The default upper bound for the number of table entries.
+	 */
+	public static final int DEFAULT_MAX_TABLE_SIZE = 1 << 16;
+
+	@Getter
+	private final DecisionModel model;
+	@Getter
+	private final int maxTableSize;
+	private LookupTable table;
+
+	/**
+	 * Classifies an instance by computing the code of its attribute values and reading the precomputed prediction.
+	 * Instances with values unknown to the table are classified by the decorated model.
+	 * @author Julian Brummer
+	 *
+	 */
+	private class LookupTable implements Classifier {
+
+		private final EnumAttribute<?>[] attributes;
+		private final EnumAttribute<?> classAttribute;
+		private final int[] strides;
+		private final int[] predictions;
+
+		public LookupTable(List<EnumAttribute<?>> attributes, EnumAttribute<?> classAttribute, int size) {
+			this.attributes = attributes.toArray(new EnumAttribute<?>[attributes.size()]);
+			this.classAttribute = classAttribute;
+			this.strides = new int[this.attributes.length];
+			this.predictions = new int[size];
+
+			int stride = 1;
+			for (int i = 0; i < strides.length; i++) {
+				strides[i] = stride;
+				stride *= this.attributes[i].numValues();
+			}
+
+			// enumerate all value combinations and store the predictions of the decorated model
+			Classifier classifier = model.classifier();
+			Instance instance = new Instance();
+			for (int code = 0; code < size; code++) {
+				int remainder = code;
+				for (EnumAttribute<?> attribute : this.attributes) {
+					instance.addUnchecked(attribute, attribute.value(remainder % attribute.numValues()));
+					remainder /= attribute.numValues();
+				}
+				predictions[code] = classifier.classifyOrdinal(instance, classAttribute);
+			}
+		}
+
+		/**
+		 * @return The index of the instance within the table or -1 if the instance has a value not covered by the table.
+		 */
+		private int code(Instance instance) {
+			int code = 0;
+			for (int i = 0; i < attributes.length; i++) {
+				int ordinal = attributes[i].indexOf(instance.value(attributes[i]));
+				if (ordinal < 0)
+					return -1;
+				code += ordinal * strides[i];
+			}
+			return code;
+		}
+
+		@Override
+		public int classifyOrdinal(Instance instance, EnumAttribute<?> classAttribute) {
+			int code = code(instance);
+			return code < 0? model.classifier().classifyOrdinal(instance, classAttribute) : predictions[code];
+		}
+
+		@Override
+		public Value<?> classify(Instance instance, EnumAttribute<?> classAttribute) {
+			int code = code(instance);
+			if (code < 0)
+				return model.classify(instance, classAttribute);
+			int ordinal = predictions[code];
+			return ordinal < 0? null : this.classAttribute.value(ordinal);
+		}
+	}
+
+	/**
+	 * Decorates a model with a lookup table of at most {@link #DEFAULT_MAX_TABLE_SIZE} entries.
+	 */
+	public LookupTableModel(DecisionModel model) {
+		this(model, DEFAULT_MAX_TABLE_SIZE);
+	}
+
+	/**
+	 * Decorates a model with a lookup table.
+	 * @param model The model to precompute.
+	 * @param maxTableSize The table is only compiled, if the product of all attribute domain sizes does not exceed this bound.
+	 */
+	public LookupTableModel(DecisionModel model, int maxTableSize) {
+		this.model = model;
+		this.maxTableSize = maxTableSize;
+	}
+
+	/**
+	 * Computes the product of the domain sizes of the specified attributes.
+	 * @return The number of possible value combinations or -1 if the product exceeds the maximum table size.
+	 */
+	private long tableSize(List<EnumAttribute<?>> attributes) {
+		long size = 1;
+		for (EnumAttribute<?> attribute : attributes) {
+			size *= attribute.numValues();
+			if (size > maxTableSize)
+				return -1;
+		}
+		return size;
+	}
+
+	/**
+	 * Precomputes the predictions of the (already trained) decorated model, if the domain is small enough.
+	 * @param attributes The attributes the decorated model may decide on.
+	 * @param classAttribute The classification/target attribute.
+	 * @return Whether the lookup table was compiled.
+	 */
+	public boolean compile(List<EnumAttribute<?>> attributes, EnumAttribute<?> classAttribute) {
+		long size = tableSize(attributes);
+		table = size > 0? new LookupTable(attributes, classAttribute, (int) size) : null;
+		return isCompiled();
+	}
+
+	/**
+	 * @return Whether classification uses the lookup table.
+	 */
+	public boolean isCompiled() {
+		return table != null;
+	}
+
+	/**
+	 * Trains the decorated model and compiles the lookup table, if the product of the domain sizes
+	 * of all attributes (except for the classAttribute) does not exceed the maximum table size.
+	 */
+	@Override
+	public void trainModel(DatasetView examples, EnumAttribute<?> classAttribute) {
+		table = null;
+		model.trainModel(examples, classAttribute);
+		List<EnumAttribute<?>> attributes = new ArrayList<>();
+		for (EnumAttribute<?> attribute : examples.attributes()) {
+			if (!attribute.equals(classAttribute))
+				attributes.add(attribute);
+		}
+		compile(attributes, classAttribute);
+	}
+
+	/**
+	 * @return The lookup table if compiled, otherwise the classifier of the decorated model.
+	 */
+	@Override
+	public Classifier classifier() {
+		LookupTable table = this.table;
+		return table != null? table : model.classifier();
+	}
+
+	@Override
+	public String toString() {
+		return model.toString();
+	}
+
+}
@@ -4,6 +4,7 @@ import java.util.List;
 
 import uni.ml.dataset.Dataset;
 import uni.ml.dataset.EnumAttribute;
+import uni.ml.dataset.Instance;
 import uni.ml.dataset.Value;
 import uni.ml.dataset.view.DatasetIndexedView;
 import uni.ml.dataset.view.DatasetPredicateView;
@@ -23,7 +24,7 @@ public class Measures {
 			return 0.0f;
 		}
 		DatasetView valueSubset = DatasetPredicateView.selectInstances(dataset, attribute, value); // Sv
-		return (float) valueSubset.numInstances()/dataset.numInstances(); 
+		return (float) valueSubset.sumMultiplicities()/dataset.sumMultiplicities(); 
 	}
 	
 	/**
@@ -72,20 +73,13 @@ public class Measures {
 	 * @param dataset The dataset or a view on a subset.
 	 * @param classAttribute The classification attribute with a fixed number of allowed string values.
 	 * @param splitAttribute The attribute by which the dataset is split to compute the information gain.
+	 * Instances are counted with their multiplicity, like in {@link #entropy(DatasetView, EnumAttribute)}.
 	 */
 	public static float informationGain(
 			DatasetView dataset, 
 			EnumAttribute<?> classAttribute, 
 			EnumAttribute<?> splitAttribute) {
-		
-		float gain = entropy(dataset, classAttribute);
-		
-		for (Value<?> value : splitAttribute) { // iterate over allowed values of the split-attribute A
-			DatasetView valueSubset = DatasetPredicateView.selectInstances(dataset, splitAttribute, value); // Sv
-			float weight = (float) valueSubset.numInstances()/dataset.numInstances(); // |Sv|/|S|
-			gain -= weight * entropy(valueSubset, classAttribute);
-		}
-		return gain;
+		return informationGain(classCounts(dataset, classAttribute, splitAttribute));
 	}
 	
 	/**
@@ -103,6 +97,253 @@ public class Measures {
 		return informationGain(new DatasetIndexedView(dataset, indices), classAttribute, splitAttribute);
 	}
 	
+	/**
+	 * Counts the instances of each class within a dataset(-view).
+	 * Each instance is counted with its multiplicity (e.g. within a bootstrap sample), so duplicates cost a single addition.
+	 * @return The number of instances for each value of the classAttribute, indexed by value ordinal.
+	 */
+	public static long[] classCounts(DatasetView dataset, EnumAttribute<?> classAttribute) {
+		long[] counts = new long[classAttribute.numValues()];
+		for (int i = 0; i < dataset.numInstances(); i++) {
+			int c = classAttribute.indexOf(dataset.instanceAt(i).value(classAttribute));
+			if (c >= 0)
+				counts[c] += dataset.multiplicityAt(i);
+		}
+		return counts;
+	}
+	
+	/**
+	 * Counts the instances of each class for each value of the split attribute in a single pass over the dataset(-view).
+	 * Each instance is counted with its multiplicity (e.g. within a bootstrap sample), so duplicates cost a single addition.
+	 * @return The number of instances indexed by [split value ordinal][class value ordinal].
+	 */
+	public static long[][] classCounts(DatasetView dataset, EnumAttribute<?> classAttribute, EnumAttribute<?> splitAttribute) {
+		long[][] counts = new long[splitAttribute.numValues()][classAttribute.numValues()];
+		for (int i = 0; i < dataset.numInstances(); i++) {
+			Instance instance = dataset.instanceAt(i);
+			int v = splitAttribute.indexOf(instance.value(splitAttribute));
+			int c = classAttribute.indexOf(instance.value(classAttribute));
+			if (v >= 0 && c >= 0)
+				counts[v][c] += dataset.multiplicityAt(i);
+		}
+		return counts;
+	}
+	
+	/**
+	 * Sums up the instance weights of each class within a dataset(-view), each instance counted with its multiplicity.
+	 * @return The weighted number of instances for each value of the classAttribute, indexed by value ordinal.
+	 * @see DatasetView#weightAt(int)
+	 */
+	public static double[] weightedClassCounts(DatasetView dataset, EnumAttribute<?> classAttribute) {
+		double[] counts = new double[classAttribute.numValues()];
+		for (int i = 0; i < dataset.numInstances(); i++) {
+			int c = classAttribute.indexOf(dataset.instanceAt(i).value(classAttribute));
+			if (c >= 0)
+				counts[c] += (double) dataset.weightAt(i) * dataset.multiplicityAt(i);
+		}
+		return counts;
+	}
+	
+	/**
+	 * Sums up the instance weights of each class for each value of the split attribute in a single pass over the dataset(-view), 
+	 * each instance counted with its multiplicity.
+	 * @return The weighted number of instances indexed by [split value ordinal][class value ordinal].
+	 * @see DatasetView#weightAt(int)
+	 */
+	public static double[][] weightedClassCounts(DatasetView dataset, EnumAttribute<?> classAttribute, EnumAttribute<?> splitAttribute) {
+		double[][] counts = new double[splitAttribute.numValues()][classAttribute.numValues()];
+		for (int i = 0; i < dataset.numInstances(); i++) {
+			Instance instance = dataset.instanceAt(i);
+			int v = splitAttribute.indexOf(instance.value(splitAttribute));
+			int c = classAttribute.indexOf(instance.value(classAttribute));
+			if (v >= 0 && c >= 0)
+				counts[v][c] += (double) dataset.weightAt(i) * dataset.multiplicityAt(i);
+		}
+		return counts;
+	}
+	
+	/**
+	 * @return The sum of all counts.
+	 */
+	public static long sum(long[] counts) {
+		long sum = 0;
+		for (long count : counts) {
+			sum += count;
+		}
+		return sum;
+	}
+	
+	/**
+	 * @return The sum of all (weighted) counts.
+	 */
+	public static double sum(double[] counts) {
+		double sum = 0.0;
+		for (double count : counts) {
+			sum += count;
+		}
+		return sum;
+	}
+	
+	/**
+	 * @return The index of the maximum count, the first index in case of ties.
+	 */
+	public static int argMax(long[] counts) {
+		int max = 0;
+		for (int i = 1; i < counts.length; i++) {
+			if (counts[i] > counts[max])
+				max = i;
+		}
+		return max;
+	}
+	
+	/**
+	 * @return The index of the maximum (weighted) count, the first index in case of ties.
+	 */
+	public static int argMax(double[] counts) {
+		int max = 0;
+		for (int i = 1; i < counts.length; i++) {
+			if (counts[i] > counts[max])
+				max = i;
+		}
+		return max;
+	}
+	
+	/**
+	 * @return The index of the maximum (e.g. vote), the first index in case of ties.
+	 */
+	public static int argMax(float[] counts) {
+		int max = 0;
+		for (int i = 1; i < counts.length; i++) {
+			if (counts[i] > counts[max])
+				max = i;
+		}
+		return max;
+	}
+	
+	/**
+	 * @return -p*log2(p) for the ratio p = count/n, which is 0 for count = 0.
+	 */
+	private static double entropyTerm(double count, double n) {
+		if (count <= 0) // avoid log(0)
+			return 0.0;
+		double pv = count/n;
+		return -pv * Math.log(pv)/Math.log(2);
+	}
+	
+	private static double entropy(long[] classCounts, long n) {
+		double entropy = 0.0;
+		for (long count : classCounts) {
+			entropy += entropyTerm(count, n);
+		}
+		return entropy;
+	}
+	
+	private static double entropy(double[] classCounts, double n) {
+		double entropy = 0.0;
+		for (double count : classCounts) {
+			entropy += entropyTerm(count, n);
+		}
+		return entropy;
+	}
+	
+	/**
+	 * Computes the entropy from class counts.
+	 * @param classCounts The number of instances of each class.
+	 * @return The entropy or 0 if there are no instances.
+	 */
+	public static float entropy(long[] classCounts) {
+		long n = sum(classCounts);
+		return n > 0? (float) entropy(classCounts, n) : 0.0f;
+	}
+	
+	/**
+	 * Computes the entropy from weighted class counts.
+	 * @param classCounts The weighted number of instances of each class.
+	 * @return The entropy or 0 if there are no instances.
+	 */
+	public static float entropy(double[] classCounts) {
+		double n = sum(classCounts);
+		return n > 0? (float) entropy(classCounts, n) : 0.0f;
+	}
+	
+	/**
+	 * Computes the information gain from class counts per split value.
+	 * @param classCounts The number of instances indexed by [split value ordinal][class value ordinal].
+	 */
+	public static float informationGain(long[][] classCounts) {
+		int numClasses = classCounts.length > 0? classCounts[0].length : 0;
+		long[] totalCounts = new long[numClasses];
+		for (long[] valueCounts : classCounts) {
+			for (int c = 0; c < numClasses; c++) {
+				totalCounts[c] += valueCounts[c];
+			}
+		}
+		long n = sum(totalCounts);
+		if (n <= 0)
+			return 0.0f;
+		double gain = entropy(totalCounts, n);
+		for (long[] valueCounts : classCounts) { // iterate over allowed values of the split-attribute A
+			long nv = sum(valueCounts);
+			if (nv > 0)
+				gain -= (double) nv/n * entropy(valueCounts, nv); // |Sv|/|S| * Entropy(Sv)
+		}
+		return (float) gain;
+	}
+	
+	/**
+	 * Computes the information gain from weighted class counts per split value.
+	 * @param classCounts The weighted number of instances indexed by [split value ordinal][class value ordinal].
+	 */
+	public static float informationGain(double[][] classCounts) {
+		int numClasses = classCounts.length > 0? classCounts[0].length : 0;
+		double[] totalCounts = new double[numClasses];
+		for (double[] valueCounts : classCounts) {
+			for (int c = 0; c < numClasses; c++) {
+				totalCounts[c] += valueCounts[c];
+			}
+		}
+		double n = sum(totalCounts);
+		if (n <= 0)
+			return 0.0f;
+		double gain = entropy(totalCounts, n);
+		for (double[] valueCounts : classCounts) { // iterate over allowed values of the split-attribute A
+			double nv = sum(valueCounts);
+			if (nv > 0)
+				gain -= nv/n * entropy(valueCounts, nv); // |Sv|/|S| * Entropy(Sv)
+		}
+		return (float) gain;
+	}
+	
+	/**
+	 * Computes the entropy of a weighted dataset(-view), where the instance weights are used as class counts.
+	 * @param dataset The dataset or a view on a subset.
+	 * @param classAttribute The classification attribute with a fixed number of allowed string values.
+	 * @see DatasetView#weightAt(int)
+	 */
+	public static float weightedEntropy(DatasetView dataset, EnumAttribute<?> classAttribute) {
+		return entropy(weightedClassCounts(dataset, classAttribute));
+	}
+	
+	/**
+	 * Computes the information gain by splitting a weighted dataset(-view) at the specified attribute,
+	 * where the instance weights are used as class counts.
+	 * @param dataset The dataset or a view on a subset.
+	 * @param classAttribute The classification attribute with a fixed number of allowed string values.
+	 * @param splitAttribute The attribute by which the dataset is split to compute the information gain.
+	 * @see DatasetView#weightAt(int)
+	 */
+	public static float weightedInformationGain(DatasetView dataset, EnumAttribute<?> classAttribute, EnumAttribute<?> splitAttribute) {
+		return informationGain(weightedClassCounts(dataset, classAttribute, splitAttribute));
+	}
+	
+	/**
+	 * Finds the value of the specified attribute with the maximum sum of instance weights within a dataset(-view).
+	 * @see DatasetView#weightAt(int)
+	 */
+	public static Value<?> weightedMostCommonValue(DatasetView dataset, EnumAttribute<?> attribute) {
+		return attribute.value(argMax(weightedClassCounts(dataset, attribute)));
+	}
+	
 	/**
 	 * Computes the mean and standard deviation from a list of classification results.
 	 */
@@ -0,0 +1,229 @@
+package uni.ml.learning;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.BitSet;
+
+import uni.ml.dataset.EnumAttribute;
+import uni.ml.dataset.view.DatasetView;
+import uni.ml.tree.NodeArray;
+
+/**
+ * Saves and loads {@link CompiledModel}s using a compact, versioned binary format (big endian):
+ * <pre>
+ * int     magic ("MLMF")
+ * int     version
+ * int     numAttributes
+ *         per attribute: string name, int numValues, string[numValues] values
+ * int     classAttributeIndex
+ * int     numTrees
+ * float[] weights (numTrees)
+ * int[]   roots (numTrees)
+ * int     numNodes
+ *         padding to a multiple of 4 bytes
+ * int[]   nodes (numNodes), see {@link NodeArray}, children are stored before their parents
+ * </pre>
+ * Strings are stored as an int length followed by the UTF-8 bytes. Values are stored as their ARFF string,
+ * so loaded attributes are always string attributes.
+ * Loading maps the file into memory, the nodes are read directly from the mapped buffer without creating any node objects.
+ * @author Julian Brummer
+ *
+ */
+public class ModelFile {
+
+	public static final int MAGIC = 0x4D4C4D46;
+	public static final int VERSION = 1;
+
+	private static void writeString(DataOutputStream out, String s) throws IOException {
+		byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+
+	/**
+	 * Reads the number of the following elements, each of which takes at least 4 bytes, 
+	 * so a corrupt count can not cause a huge allocation.
+	 */
+	private static int readCount(ByteBuffer buffer) {
+		int count = buffer.getInt();
+		if (count < 0 || count > buffer.remaining() / 4)
+			throw new BufferUnderflowException();
+		return count;
+	}
+
+	private static String readString(ByteBuffer buffer) {
+		int length = buffer.getInt();
+		if (length < 0 || length > buffer.remaining())
+			throw new BufferUnderflowException();
+		byte[] bytes = new byte[length];
+		buffer.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Saves a compiled model to a file.
+	 * @throws IOException if the file can not be written.
+	 */
+	public static void save(CompiledModel model, File file) throws IOException {
+		NodeArray nodes = model.nodes();
+		EnumAttribute<?>[] attributes = nodes.attributes();
+		int classAttributeIndex = -1;
+
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeInt(attributes.length);
+			for (int i = 0; i < attributes.length; i++) {
+				EnumAttribute<?> attribute = attributes[i];
+				if (attribute.equals(model.classAttribute()))
+					classAttributeIndex = i;
+				writeString(out, attribute.name());
+				out.writeInt(attribute.numValues());
+				for (int j = 0; j < attribute.numValues(); j++) {
+					writeString(out, attribute.value(j).arffString());
+				}
+			}
+			if (classAttributeIndex < 0)
+				throw new IOException("The class attribute is not part of the attribute dictionary");
+			out.writeInt(classAttributeIndex);
+			out.writeInt(model.numTrees());
+			for (int i = 0; i < model.numTrees(); i++) {
+				out.writeFloat(model.weight(i));
+			}
+			for (int i = 0; i < model.numTrees(); i++) {
+				out.writeInt(model.root(i));
+			}
+			out.writeInt(nodes.size());
+			while (out.size() % 4 != 0) {
+				out.writeByte(0);
+			}
+			for (int i = 0; i < nodes.size(); i++) {
+				out.writeInt(nodes.get(i));
+			}
+		}
+	}
+
+	/**
+	 * Saves a trained decision tree to a file.
+	 * @param header The dataset(-view) the model was trained on. Only the attributes are used.
+	 * @param classAttribute The classification/target attribute.
+	 * @throws IOException if the file can not be written.
+	 */
+	public static void save(DecisionTreeModel model, DatasetView header, EnumAttribute<?> classAttribute, File file) throws IOException {
+		save(CompiledModel.compile(model, header, classAttribute), file);
+	}
+
+	/**
+	 * Saves a trained boosting forest to a file.
+	 * @param header The dataset(-view) the model was trained on. Only the attributes are used.
+	 * @param classAttribute The classification/target attribute.
+	 * @throws IOException if the file can not be written.
+	 */
+	public static void save(BoostingForestModel model, DatasetView header, EnumAttribute<?> classAttribute, File file) throws IOException {
+		save(CompiledModel.compile(model, header, classAttribute), file);
+	}
+
+	/**
+	 * Checks whether a pointer references a leaf with a valid class value or an inner node starting at a marked position.
+	 */
+	private static boolean isValidPointer(int pointer, BitSet nodeStarts, EnumAttribute<?> classAttribute) {
+		if (NodeArray.isLeaf(pointer))
+			return NodeArray.leaf(pointer) < classAttribute.numValues();
+		return nodeStarts.get(pointer);
+	}
+
+	/**
+	 * Checks that the nodes are stored one after another with the children preceding their parents (as encoded by {@link NodeArray.Builder}), 
+	 * so every pointer references a node or leaf and classification always terminates.
+	 * @throws IOException if the nodes are corrupt.
+	 */
+	private static void checkNodes(File file, EnumAttribute<?>[] attributes, EnumAttribute<?> classAttribute, IntBuffer nodes, int[] roots) throws IOException {
+		BitSet nodeStarts = new BitSet(nodes.limit());
+		int p = 0;
+		while (p < nodes.limit()) {
+			int attributeIndex = nodes.get(p);
+			if (attributeIndex < 0 || attributeIndex >= attributes.length)
+				throw new IOException(file + " is corrupt: node " + p + " references the unknown attribute " + attributeIndex);
+			int numValues = attributes[attributeIndex].numValues();
+			if (numValues >= nodes.limit() - p)
+				throw new IOException(file + " is corrupt: node " + p + " exceeds the node array");
+			for (int j = 1; j <= numValues; j++) {
+				if (!isValidPointer(nodes.get(p+j), nodeStarts, classAttribute))
+					throw new IOException(file + " is corrupt: node " + p + " has the invalid child pointer " + nodes.get(p+j));
+			}
+			nodeStarts.set(p);
+			p += 1 + numValues;
+		}
+		for (int i = 0; i < roots.length; i++) {
+			if (!isValidPointer(roots[i], nodeStarts, classAttribute))
+				throw new IOException(file + " is corrupt: tree " + i + " has the invalid root pointer " + roots[i]);
+		}
+	}
+
+	/**
+	 * Loads a model by mapping the file into memory.
+	 * The class attribute index and all pointers are validated, so a corrupt file can not cause out of bounds reads or endless loops.
+	 * @throws IOException if the file can not be read or is not a valid model file.
+	 */
+	public static CompiledModel load(File file) throws IOException {
+		ByteBuffer buffer;
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		}
+
+		if (buffer.remaining() < 8 || buffer.getInt() != MAGIC)
+			throw new IOException(file + " is not a model file");
+		int version = buffer.getInt();
+		if (version != VERSION)
+			throw new IOException("Unsupported model file version " + version + " of " + file);
+
+		try {
+			EnumAttribute<?>[] attributes = new EnumAttribute<?>[readCount(buffer)];
+			for (int i = 0; i < attributes.length; i++) {
+				String name = readString(buffer);
+				String[] values = new String[readCount(buffer)];
+				for (int j = 0; j < values.length; j++) {
+					values[j] = readString(buffer);
+				}
+				attributes[i] = new EnumAttribute<>(name, values);
+			}
+			int classAttributeIndex = buffer.getInt();
+			if (classAttributeIndex < 0 || classAttributeIndex >= attributes.length)
+				throw new IOException(file + " is corrupt: the class attribute index " + classAttributeIndex + " is not within [0," + attributes.length + ")");
+			EnumAttribute<?> classAttribute = attributes[classAttributeIndex];
+
+			int numTrees = readCount(buffer);
+			float[] weights = new float[numTrees];
+			int[] roots = new int[numTrees];
+			for (int i = 0; i < numTrees; i++) {
+				weights[i] = buffer.getFloat();
+			}
+			for (int i = 0; i < numTrees; i++) {
+				roots[i] = buffer.getInt();
+			}
+			int numNodes = buffer.getInt();
+			buffer.position((buffer.position() + 3) & ~3);
+			IntBuffer nodes = buffer.slice().asIntBuffer();
+			if (numNodes < 0 || nodes.remaining() < numNodes)
+				throw new IOException(file + " is truncated");
+			nodes.limit(numNodes);
+			checkNodes(file, attributes, classAttribute, nodes, roots);
+
+			return new CompiledModel(new NodeArray(attributes, nodes), classAttribute, roots, weights);
+		} catch (BufferUnderflowException e) {
+			throw new IOException(file + " is truncated", e);
+		} catch (IllegalArgumentException e) {
+			throw new IOException(file + " is corrupt: " + e.getMessage(), e);
+		}
+	}
+
+}
@@ -0,0 +1,127 @@
+package uni.ml.learning;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.Setter;
+import lombok.experimental.Accessors;
+import uni.ml.dataset.EnumAttribute;
+import uni.ml.dataset.Instance;
+import uni.ml.dataset.Value;
+import uni.ml.dataset.view.DatasetView;
+import uni.ml.tree.Classifier;
+
+/**
+ * A random forest, i.e. independent decision trees trained in parallel on bootstrap samples
+ * with random candidate attributes at each node. Each tree has an equal vote.
+ * @see Bagging
+ * @author Julian Brummer
+ *
+ */
+@RequiredArgsConstructor
+@Accessors(fluent=true)
+public class RandomForestModel extends DecisionModel implements Iterable<DecisionTreeModel> {
+
+	private List<DecisionTreeModel> models = new ArrayList<>();
+	private final int numTrees, maxDepth;
+	/**
+	 * The number of random candidate attributes per node.
+	 * 0 (default) uses the square root of the number of attributes.
+	 */
+	@Getter @Setter
+	private int attributeSubsetSize;
+	/**
+	 * The seed of the random number generator.
+	 * @see DecisionModel
+	 */
+	@Getter @Setter
+	private long seed = new SplittableRandom().nextLong();
+	/**
+	 * The executor to train the trees on.
+	 */
+	@Getter @Setter
+	private ExecutorService executor = ForkJoinPool.commonPool();
+	private final Classifier classifier = new ForestClassifier();
+
+	/**
+	 * To classify an instance by a majority vote of the trees.
+	 * @author Julian Brummer
+	 *
+	 */
+	private class ForestClassifier implements Classifier {
+
+		private int vote(Instance instance, EnumAttribute<?> classAttribute, int[] votes) {
+			for (DecisionTreeModel model : models) {
+				int ordinal = model.classifier().classifyOrdinal(instance, classAttribute);
+				if (ordinal >= 0)
+					votes[ordinal]++;
+			}
+			int maxOrdinal = 0;
+			for (int i = 1; i < votes.length; i++) {
+				if (votes[i] > votes[maxOrdinal])
+					maxOrdinal = i;
+			}
+			return maxOrdinal;
+		}
+
+		@Override
+		public int classifyOrdinal(Instance instance, EnumAttribute<?> classAttribute) {
+			return vote(instance, classAttribute, new int[classAttribute.numValues()]);
+		}
+
+		@Override
+		public Value<?> classify(Instance instance, EnumAttribute<?> classAttribute) {
+			return classAttribute.value(classifyOrdinal(instance, classAttribute));
+		}
+
+		@Override
+		public void classifyRange(DatasetView dataset, EnumAttribute<?> classAttribute, int from, int to, int[] predictions) {
+			int[] votes = new int[classAttribute.numValues()]; // reused for all instances of the range
+			for (int i = from; i < to; i++) {
+				predictions[i] = vote(dataset.instanceAt(i), classAttribute, votes);
+				Arrays.fill(votes, 0);
+			}
+		}
+	}
+
+	public boolean hasModels() {
+		return numModels() > 0;
+	}
+
+	public int numModels() {
+		return models.size();
+	}
+
+	@Override
+	public Iterator<DecisionTreeModel> iterator() {
+		return models.iterator();
+	}
+
+	@Override
+	public void trainModel(DatasetView examples, EnumAttribute<?> classAttribute) {
+		int subsetSize = attributeSubsetSize > 0? attributeSubsetSize : (int) Math.ceil(Math.sqrt(examples.numAttributes()-1));
+		models = Bagging.modelGeneration(examples, numTrees, classAttribute, maxDepth, subsetSize, seed, executor);
+	}
+
+	@Override
+	public Classifier classifier() {
+		return classifier;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder b = new StringBuilder();
+		for (DecisionTreeModel model : models) {
+			b.append(model).append("\n");
+		}
+		return b.toString();
+	}
+
+}
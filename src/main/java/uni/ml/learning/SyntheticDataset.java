@@ -0,0 +1,335 @@
+package uni.ml.learning;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.SplittableRandom;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.experimental.Accessors;
+import uni.ml.dataset.Dataset;
+import uni.ml.dataset.DatasetFile;
+import uni.ml.dataset.EnumAttribute;
+import uni.ml.dataset.Instance;
+import uni.ml.dataset.Sampling;
+import uni.ml.tree.InnerNode;
+import uni.ml.tree.Leaf;
+import uni.ml.tree.Node;
+
+/**
+ * Generates reproducible categorical datasets whose class value is determined by a planted (random) decision tree, e.g. for scaling tests.
+ * The attributes are named a0, a1, ... with values v0, v1, ..., the class attribute is the last attribute named class with values c0, c1, ...
+ * <p>
+ * Each instance is generated by drawing a class value from the class prior, a leaf of the planted tree predicting that value
+ * (in proportion to the fraction of the instance space covered by the leaf) and uniform values for all attributes not fixed by the path to the leaf.
+ * Thus the class distribution follows the prior and the planted tree classifies all instances correctly,
+ * except for the fraction replaced by a uniformly random class value (noise).
+ * <p>
+ * Instances can be generated in memory ({@link #generate(int, long)}) or streamed to an ARFF or binary dataset file
+ * without keeping them in memory ({@link #writeArff(File, long, long)}, {@link #writeBinary(File, long, long)}).
+ * The same seed always yields the same instances.
+ * @author Julian Brummer
+ *
+ */
+@Accessors(fluent=true)
+public class SyntheticDataset {
+	
+	/**
+	 * The attributes including the class attribute (last).
+	 */
+	private final EnumAttribute<?>[] attributes;
+	@Getter
+	private final EnumAttribute<?> classAttribute;
+	/**
+	 * The root of the planted decision tree.
+	 */
+	@Getter
+	private final Node groundTruth;
+	private final double[] cumulativePrior;
+	/**
+	 * The leaves of the planted tree: the attribute indices and value ordinals along the path to each leaf.
+	 */
+	private final List<int[]> pathAttributes = new ArrayList<>(), pathOrdinals = new ArrayList<>();
+	/**
+	 * The leaves predicting each class value and their cumulative fraction of the instance space.
+	 */
+	private final int[][] classLeaves;
+	private final double[][] cumulativeLeafMass;
+	/**
+	 * The probability of replacing the class value by a uniformly random one (0 by default).
+	 */
+	@Getter @Setter
+	private double noise;
+	/**
+	 * The name of generated datasets.
+	 */
+	@Getter @Setter
+	private String name = "synthetic";
+	
+	/**
+	 * Creates a generator with a random planted decision tree.
+	 * The tree is complete, i.e. it has a leaf for each combination of values of the attributes along a path,
+	 * so its number of leaves grows with the product of the cardinalities of these attributes.
+	 * @param cardinalities The number of values of each (non-class) attribute.
+	 * @param classPrior The (relative) frequency of each class value, e.g. {9, 1} for a 90/10 imbalance.
+	 * @param treeDepth The depth of the planted tree, at most the number of attributes.
+	 * @param seed The seed of the planted tree.
+	 * @throws IllegalArgumentException if the tree has less leaves than class values.
+	 */
+	public SyntheticDataset(int[] cardinalities, double[] classPrior, int treeDepth, long seed) {
+		if (treeDepth > cardinalities.length)
+			throw new IllegalArgumentException("The tree depth can not exceed the number of attributes");
+		this.attributes = new EnumAttribute<?>[cardinalities.length+1];
+		for (int a = 0; a < cardinalities.length; a++) {
+			attributes[a] = attribute("a" + a, "v", cardinalities[a]);
+		}
+		this.classAttribute = attribute("class", "c", classPrior.length);
+		attributes[cardinalities.length] = classAttribute;
+		
+		this.cumulativePrior = new double[classPrior.length];
+		double sum = 0.0;
+		for (int c = 0; c < classPrior.length; c++) {
+			sum += classPrior[c];
+			cumulativePrior[c] = sum;
+		}
+		
+		// plant the tree, then label its leaves (in random order) such that each class value has at least one leaf
+		SplittableRandom random = new SplittableRandom(seed);
+		List<Leaf> leaves = new ArrayList<>();
+		List<Double> masses = new ArrayList<>();
+		boolean[] used = new boolean[cardinalities.length];
+		this.groundTruth = plant(treeDepth, used, new int[treeDepth], new int[treeDepth], 0, 1.0, leaves, masses, random);
+		if (leaves.size() < classPrior.length)
+			throw new IllegalArgumentException("The planted tree has less leaves than class values");
+		
+		int[] leafClasses = new int[leaves.size()];
+		int[] order = Sampling.shuffleArray(leaves.size(), random);
+		int[] numClassLeaves = new int[classPrior.length];
+		for (int i = 0; i < order.length; i++) {
+			int c = i < classPrior.length? i : draw(cumulativePrior, random);
+			leafClasses[order[i]] = c;
+			numClassLeaves[c]++;
+		}
+		this.classLeaves = new int[classPrior.length][];
+		this.cumulativeLeafMass = new double[classPrior.length][];
+		for (int c = 0; c < classPrior.length; c++) {
+			classLeaves[c] = new int[numClassLeaves[c]];
+			cumulativeLeafMass[c] = new double[numClassLeaves[c]];
+		}
+		Arrays.fill(numClassLeaves, 0);
+		for (int l = 0; l < leafClasses.length; l++) {
+			int c = leafClasses[l];
+			int i = numClassLeaves[c]++;
+			classLeaves[c][i] = l;
+			cumulativeLeafMass[c][i] = (i > 0? cumulativeLeafMass[c][i-1] : 0.0) + masses.get(l);
+			leaves.set(l, new Leaf(classAttribute.value(c)));
+		}
+		relabel(groundTruth, leaves.iterator());
+	}
+	
+	private static EnumAttribute<String> attribute(String name, String prefix, int numValues) {
+		String[] values = new String[numValues];
+		for (int i = 0; i < numValues; i++) {
+			values[i] = prefix + i;
+		}
+		return new EnumAttribute<>(name, values);
+	}
+	
+	/**
+	 * Creates a random (sub-)tree, each inner node splits on a random attribute not used along the path.
+	 * The leaves are placeholders, they are labeled once all leaves are known.
+	 * @param mass The fraction of the instance space covered by the (sub-)tree.
+	 */
+	private Node plant(int depth, boolean[] used, int[] attributeIndices, int[] ordinals, int level, double mass,
+			List<Leaf> leaves, List<Double> masses, SplittableRandom random) {
+		if (level == depth) {
+			Leaf leaf = new Leaf(classAttribute.value(0));
+			leaves.add(leaf);
+			masses.add(mass);
+			pathAttributes.add(Arrays.copyOf(attributeIndices, level));
+			pathOrdinals.add(Arrays.copyOf(ordinals, level));
+			return leaf;
+		}
+		int a;
+		do {
+			a = random.nextInt(used.length);
+		} while (used[a]);
+		used[a] = true;
+		InnerNode node = new InnerNode();
+		node.decisionAttribute(attributes[a]);
+		attributeIndices[level] = a;
+		for (int j = 0; j < attributes[a].numValues(); j++) {
+			ordinals[level] = j;
+			node.addChild(attributes[a].value(j), plant(depth, used, attributeIndices, ordinals, level+1, mass / attributes[a].numValues(), leaves, masses, random));
+		}
+		used[a] = false;
+		return node;
+	}
+	
+	/**
+	 * Replaces the placeholder leaves of the (sub-)tree by the labeled leaves (in the order of planting).
+	 */
+	private static Node relabel(Node node, Iterator<Leaf> leaves) {
+		if (node instanceof Leaf)
+			return leaves.next();
+		InnerNode inner = (InnerNode) node;
+		EnumAttribute<?> attribute = inner.decisionAttribute();
+		for (int j = 0; j < attribute.numValues(); j++) {
+			inner.addChild(attribute.value(j), relabel(inner.child(attribute.value(j)), leaves));
+		}
+		return inner;
+	}
+	
+	/**
+	 * Draws an index in proportion to the cumulative weights.
+	 */
+	private static int draw(double[] cumulativeWeights, SplittableRandom random) {
+		double r = random.nextDouble() * cumulativeWeights[cumulativeWeights.length-1];
+		int i = Arrays.binarySearch(cumulativeWeights, r);
+		i = i < 0? -i-1 : i+1;
+		return Math.min(i, cumulativeWeights.length-1);
+	}
+	
+	/**
+	 * Generates the value ordinals of the next instance (the class value ordinal is last).
+	 */
+	private void next(int[] ordinals, SplittableRandom random) {
+		int c = draw(cumulativePrior, random);
+		int leaf = classLeaves[c][draw(cumulativeLeafMass[c], random)];
+		for (int a = 0; a < ordinals.length-1; a++) {
+			ordinals[a] = random.nextInt(attributes[a].numValues());
+		}
+		int[] path = pathAttributes.get(leaf), pathValues = pathOrdinals.get(leaf);
+		for (int i = 0; i < path.length; i++) {
+			ordinals[path[i]] = pathValues[i];
+		}
+		if (noise > 0.0 && random.nextDouble() < noise) {
+			c = random.nextInt(classAttribute.numValues());
+		}
+		ordinals[ordinals.length-1] = c;
+	}
+	
+	private Instance instance(int[] ordinals) {
+		Instance instance = new Instance();
+		for (int a = 0; a < attributes.length; a++) {
+			instance.addUnchecked(attributes[a], attributes[a].value(ordinals[a]));
+		}
+		return instance;
+	}
+	
+	/**
+	 * @return An empty dataset with the name and attributes of generated datasets.
+	 */
+	public Dataset header() {
+		Dataset header = new Dataset(attributes);
+		header.name(name);
+		return header;
+	}
+	
+	/**
+	 * Lazily generates instances, e.g. as the input of {@link uni.ml.dataset.StreamSampling}.
+	 * @param numInstances The number of instances.
+	 * @param seed The seed of the instances.
+	 */
+	public Iterator<Instance> instances(long numInstances, long seed) {
+		SplittableRandom random = new SplittableRandom(seed);
+		int[] ordinals = new int[attributes.length];
+		return new Iterator<Instance>() {
+			private long count;
+
+			@Override
+			public boolean hasNext() {
+				return count < numInstances;
+			}
+
+			@Override
+			public Instance next() {
+				if (!hasNext())
+					throw new NoSuchElementException();
+				count++;
+				SyntheticDataset.this.next(ordinals, random);
+				return instance(ordinals);
+			}
+		};
+	}
+	
+	/**
+	 * Generates a dataset in memory.
+	 * @param numInstances The number of instances.
+	 * @param seed The seed of the instances.
+	 */
+	public Dataset generate(int numInstances, long seed) {
+		Dataset dataset = header();
+		instances(numInstances, seed).forEachRemaining(dataset::addInstance);
+		return dataset;
+	}
+	
+	/**
+	 * Streams generated instances to an ARFF file, without creating them in memory.
+	 * @param numInstances The number of instances.
+	 * @param seed The seed of the instances, the file contains the same instances as {@link #generate(int, long)}.
+	 * @throws IOException if the file can not be written.
+	 */
+	public void writeArff(File file, long numInstances, long seed) throws IOException {
+		try (Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8), 1 << 16)) {
+			writer.write("@relation " + name);
+			writer.write("\n");
+			writer.write("\n");
+			for (EnumAttribute<?> attribute : attributes) {
+				writer.write(attribute.arffString());
+				writer.write("\n");
+			}
+			writer.write("\n");
+			writer.write("@data\n");
+			
+			// value strings are looked up once instead of per instance
+			String[][] values = new String[attributes.length][];
+			for (int a = 0; a < attributes.length; a++) {
+				values[a] = new String[attributes[a].numValues()];
+				for (int j = 0; j < values[a].length; j++) {
+					values[a][j] = attributes[a].value(j).arffString();
+				}
+			}
+			SplittableRandom random = new SplittableRandom(seed);
+			int[] ordinals = new int[attributes.length];
+			for (long i = 0; i < numInstances; i++) {
+				next(ordinals, random);
+				for (int a = 0; a < attributes.length; a++) {
+					if (a > 0)
+						writer.write(',');
+					writer.write(values[a][ordinals[a]]);
+				}
+				writer.write('\n');
+			}
+		}
+	}
+	
+	/**
+	 * Streams generated instances to a binary dataset file, without creating them in memory.
+	 * @param numInstances The number of instances.
+	 * @param seed The seed of the instances, the file contains the same instances as {@link #generate(int, long)}.
+	 * @throws IOException if the file can not be written.
+	 * @see DatasetFile
+	 */
+	public void writeBinary(File file, long numInstances, long seed) throws IOException {
+		try (DatasetFile.Writer writer = new DatasetFile.Writer(file, header())) {
+			SplittableRandom random = new SplittableRandom(seed);
+			int[] ordinals = new int[attributes.length];
+			for (long i = 0; i < numInstances; i++) {
+				next(ordinals, random);
+				writer.write(ordinals);
+			}
+		}
+	}
+
+}
@@ -0,0 +1,41 @@
+package uni.ml.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+import lombok.Setter;
+import lombok.experimental.Accessors;
+
+/**
+ * A flight recorder event for a boosting iteration, i.e. sampling, training and testing a tree and reweighting the instances.
+ * @author Julian Brummer
+ *
+ */
+@Name("uni.ml.BoostingIteration")
+@Label("Boosting Iteration")
+@Category({"Machine Learning", "Training"})
+@Description("Training a boosted decision tree and reweighting the instances")
+@Accessors(fluent=true)
+@Setter
+public class BoostingIterationEvent extends Event {
+	
+	@Label("Iteration")
+	private int iteration;
+	@Label("Instances")
+	private long instances;
+	@Label("Sampled Instances")
+	@Description("The number of distinct instances of the bootstrap sample, 0 without resampling")
+	private long sampledInstances;
+	@Label("Error")
+	private float error;
+	@Label("Valid")
+	@Description("Whether the tree was added to the forest (error below 0.5)")
+	private boolean valid;
+	@Label("Bootstrap Duration")
+	@Timespan(Timespan.NANOSECONDS)
+	private long bootstrapDuration;
+
+}
@@ -0,0 +1,37 @@
+package uni.ml.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import lombok.Setter;
+import lombok.experimental.Accessors;
+
+/**
+ * A flight recorder event for training and testing a model on a cross validation fold.
+ * @author Julian Brummer
+ *
+ */
+@Name("uni.ml.CrossValidationFold")
+@Label("Cross Validation Fold")
+@Category({"Machine Learning", "Evaluation"})
+@Description("Training and testing a model on a cross validation fold")
+@Accessors(fluent=true)
+@Setter
+public class CrossValidationFoldEvent extends Event {
+	
+	@Label("Fold")
+	private int fold;
+	@Label("Folds")
+	private int numFolds;
+	@Label("Model")
+	private String model;
+	@Label("Training Instances")
+	private long trainingInstances;
+	@Label("Test Instances")
+	private long testInstances;
+	@Label("Accuracy")
+	private float accuracy;
+
+}
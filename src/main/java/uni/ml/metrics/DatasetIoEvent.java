@@ -0,0 +1,54 @@
+package uni.ml.metrics;
+
+import java.io.File;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import lombok.Setter;
+import lombok.experimental.Accessors;
+
+/**
+ * A flight recorder event for loading or saving a dataset file.
+ * @author Julian Brummer
+ *
+ */
+@Name("uni.ml.DatasetIO")
+@Label("Dataset I/O")
+@Category({"Machine Learning", "I/O"})
+@Description("Loading or saving a dataset file")
+@Accessors(fluent=true)
+@Setter
+public class DatasetIoEvent extends Event {
+	
+	@Label("Operation")
+	private String operation;
+	@Label("Format")
+	private String format;
+	@Label("Path")
+	private String path;
+	@Label("Attributes")
+	private int attributes;
+	@Label("Instances")
+	private long instances;
+	
+	/**
+	 * Ends the event and commits it, if it is recorded.
+	 * @param operation "load" or "save".
+	 * @param format "arff" or "binary".
+	 */
+	public void record(String operation, String format, File file, int attributes, long instances) {
+		end();
+		if (shouldCommit()) {
+			this.operation = operation;
+			this.format = format;
+			this.path = file.getPath();
+			this.attributes = attributes;
+			this.instances = instances;
+			commit();
+		}
+	}
+
+}
@@ -0,0 +1,190 @@
+package uni.ml.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * Collects training metrics, both per run ({@link TrainingMetrics}) and accumulated over all runs (exposed as an MBean).
+ * The MBean is registered as soon as this class is initialized, i.e. when the first model is trained, 
+ * entry points call {@link #registerMBean()} at startup to expose it before.
+ * Metrics are disabled by default, they are enabled with the system property uni.ml.metrics=true, 
+ * {@link #enabled(boolean)} or the MBean.
+ * While disabled, training only checks for a null {@link TrainingMetrics} per node and does not read the clock.
+ * The accumulated metrics are updated once per trained tree (and boosting round).
+ * @author Julian Brummer
+ *
+ */
+public class Metrics {
+	
+	public static final String OBJECT_NAME = "uni.ml:type=TrainingMetrics";
+	
+	private static volatile boolean enabled = Boolean.getBoolean("uni.ml.metrics");
+	private static final Totals totals = new Totals();
+	
+	static {
+		try {
+			registerMBean();
+		} catch (IllegalStateException e) {
+			// training does not depend on the MBean, metrics can still be enabled with the system property
+		}
+	}
+	
+	/**
+	 * The metrics accumulated over all runs.
+	 */
+	private static class Totals implements TrainingMetricsMXBean {
+		private long treesTrained, rowsScanned, viewsCreated, splitSelectionNanos, partitioningNanos, trainingNanos;
+		private long bootstrapRounds, bootstrapNanos;
+		private long[] nodesPerDepth = new long[0];
+		
+		@Override
+		public boolean isEnabled() {
+			return enabled;
+		}
+
+		@Override
+		public void setEnabled(boolean enabled) {
+			Metrics.enabled = enabled;
+		}
+		
+		synchronized void add(TrainingMetrics tree) {
+			treesTrained += tree.treesTrained();
+			rowsScanned += tree.rowsScanned();
+			viewsCreated += tree.viewsCreated();
+			splitSelectionNanos += tree.splitSelectionNanos();
+			partitioningNanos += tree.partitioningNanos();
+			trainingNanos += tree.elapsedNanos();
+			long[] nodes = tree.nodesPerDepth();
+			if (nodes.length > nodesPerDepth.length) {
+				nodesPerDepth = Arrays.copyOf(nodesPerDepth, nodes.length);
+			}
+			for (int d = 0; d < nodes.length; d++) {
+				nodesPerDepth[d] += nodes[d];
+			}
+		}
+		
+		synchronized void addBootstrap(long nanos) {
+			bootstrapRounds++;
+			bootstrapNanos += nanos;
+			viewsCreated++;
+		}
+
+		@Override
+		public synchronized long getTreesTrained() {
+			return treesTrained;
+		}
+
+		@Override
+		public synchronized long getRowsScanned() {
+			return rowsScanned;
+		}
+
+		@Override
+		public synchronized long getViewsCreated() {
+			return viewsCreated;
+		}
+
+		@Override
+		public synchronized long getNodesBuilt() {
+			long sum = 0;
+			for (long n : nodesPerDepth) {
+				sum += n;
+			}
+			return sum;
+		}
+
+		@Override
+		public synchronized long[] getNodesPerDepth() {
+			return nodesPerDepth.clone();
+		}
+
+		@Override
+		public synchronized double getSplitSelectionMillis() {
+			return splitSelectionNanos / 1e6;
+		}
+
+		@Override
+		public synchronized double getPartitioningMillis() {
+			return partitioningNanos / 1e6;
+		}
+
+		@Override
+		public synchronized double getTrainingMillis() {
+			return trainingNanos / 1e6;
+		}
+
+		@Override
+		public synchronized long getBootstrapRounds() {
+			return bootstrapRounds;
+		}
+
+		@Override
+		public synchronized double getBootstrapMillis() {
+			return bootstrapNanos / 1e6;
+		}
+
+		@Override
+		public synchronized void reset() {
+			treesTrained = rowsScanned = viewsCreated = splitSelectionNanos = partitioningNanos = trainingNanos = 0;
+			bootstrapRounds = bootstrapNanos = 0;
+			nodesPerDepth = new long[0];
+		}
+	}
+	
+	public static boolean enabled() {
+		return enabled;
+	}
+	
+	public static void enabled(boolean enabled) {
+		Metrics.enabled = enabled;
+	}
+	
+	/**
+	 * Starts a training run.
+	 * @return The metrics of the run or null if metrics are disabled.
+	 */
+	public static TrainingMetrics start() {
+		return enabled? new TrainingMetrics() : null;
+	}
+	
+	/**
+	 * Adds the metrics of a finished tree to the accumulated metrics.
+	 */
+	public static void recordTree(TrainingMetrics tree) {
+		totals.add(tree);
+	}
+	
+	/**
+	 * Adds the bootstrap sample of a boosting round to the accumulated metrics.
+	 */
+	public static void recordBootstrap(long nanos) {
+		totals.addBootstrap(nanos);
+	}
+	
+	/**
+	 * @return The metrics accumulated over all runs.
+	 */
+	public static TrainingMetricsMXBean totals() {
+		return totals;
+	}
+	
+	/**
+	 * Registers the accumulated metrics with the platform MBean server (as {@value #OBJECT_NAME}), unless already registered.
+	 * Initializing this class registers them as well, so calling this method only registers them earlier.
+	 * @throws IllegalStateException if the registration fails.
+	 */
+	public static void registerMBean() {
+		try {
+			ManagementFactory.getPlatformMBeanServer().registerMBean(totals, new ObjectName(OBJECT_NAME));
+		} catch (InstanceAlreadyExistsException e) {
+			// already registered
+		} catch (JMException e) {
+			throw new IllegalStateException("Registering the training metrics failed", e);
+		}
+	}
+
+}
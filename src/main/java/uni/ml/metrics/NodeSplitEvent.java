@@ -0,0 +1,41 @@
+package uni.ml.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+import lombok.Setter;
+import lombok.experimental.Accessors;
+
+/**
+ * A flight recorder event for splitting a node while training a decision tree.
+ * The duration of the event is the selection of the decision attribute, the training of the subtrees is not included.
+ * @author Julian Brummer
+ *
+ */
+@Name("uni.ml.NodeSplit")
+@Label("Node Split")
+@Category({"Machine Learning", "Training"})
+@Description("Selecting the decision attribute of a decision tree node and partitioning its instances")
+@Accessors(fluent=true)
+@Setter
+public class NodeSplitEvent extends Event {
+	
+	@Label("Depth")
+	private int depth;
+	@Label("Instances")
+	private long instances;
+	@Label("Candidate Attributes")
+	@Description("The number of candidate attributes, 0 if the decision attribute was predetermined")
+	private int candidates;
+	@Label("Decision Attribute")
+	private String attribute;
+	@Label("Information Gain")
+	private float gain;
+	@Label("Partitioning Duration")
+	@Timespan(Timespan.NANOSECONDS)
+	private long partitioningDuration;
+
+}
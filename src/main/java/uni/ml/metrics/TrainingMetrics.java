@@ -0,0 +1,184 @@
+package uni.ml.metrics;
+
+import java.util.Arrays;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.experimental.Accessors;
+
+/**
+ * The metrics of a single training run (a decision tree or a boosted forest), returned alongside the trained model.
+ * A run is recorded by a single thread, so the metrics are not thread-safe.
+ * Instances are only created while metrics are enabled (see {@link Metrics#start()}),
+ * recording code checks for null instead of the flag.
+ * @author Julian Brummer
+ *
+ */
+@Accessors(fluent=true)
+@Getter
+public class TrainingMetrics {
+	
+	/**
+	 * The number of instances read by class counts, split selection and partitioning.
+	 */
+	private long rowsScanned;
+	/**
+	 * The number of dataset views created (partitions and bootstrap samples).
+	 */
+	private long viewsCreated;
+	/**
+	 * The time spent selecting the decision attributes (computing the information gain of the candidates).
+	 */
+	private long splitSelectionNanos;
+	/**
+	 * The time spent partitioning the instances by the values of the decision attributes.
+	 */
+	private long partitioningNanos;
+	/**
+	 * The number of decision trees trained.
+	 */
+	private int treesTrained;
+	/**
+	 * The wall clock time of the run, 0 until the run is finished.
+	 */
+	private long elapsedNanos;
+	private long[] nodesPerDepth = new long[0];
+	private long[] bootstrapNanos = new long[0];
+	private int numBootstrapRounds;
+	@Getter(AccessLevel.NONE)
+	private final long startNanos = System.nanoTime();
+	
+	/**
+	 * Records a scan over a number of instances.
+	 */
+	public void scan(long rows) {
+		rowsScanned += rows;
+	}
+	
+	/**
+	 * Records a node (inner node or leaf) at the specified depth (the root has depth 1).
+	 */
+	public void nodeBuilt(int depth) {
+		if (depth > nodesPerDepth.length) {
+			nodesPerDepth = Arrays.copyOf(nodesPerDepth, depth);
+		}
+		nodesPerDepth[depth-1]++;
+	}
+	
+	/**
+	 * Records the selection of a decision attribute.
+	 * @param nanos The time spent.
+	 * @param rows The number of instances scanned.
+	 */
+	public void splitSelection(long nanos, long rows) {
+		splitSelectionNanos += nanos;
+		rowsScanned += rows;
+	}
+	
+	/**
+	 * Records the creation of a partition view.
+	 * @param nanos The time spent.
+	 * @param rows The number of instances scanned.
+	 */
+	public void partitioning(long nanos, long rows) {
+		partitioningNanos += nanos;
+		rowsScanned += rows;
+		viewsCreated++;
+	}
+	
+	/**
+	 * Records the bootstrap sample of a boosting round.
+	 * @param nanos The time spent sampling.
+	 */
+	public void bootstrapRound(long nanos) {
+		if (numBootstrapRounds == bootstrapNanos.length) {
+			bootstrapNanos = Arrays.copyOf(bootstrapNanos, Math.max(8, 2*bootstrapNanos.length));
+		}
+		bootstrapNanos[numBootstrapRounds++] = nanos;
+		viewsCreated++;
+	}
+	
+	/**
+	 * Adds the counters of another run, e.g. of a tree trained as part of this run. 
+	 * The elapsed time of the other run is counted as training time of a tree.
+	 * @param other The other run or null.
+	 */
+	public void merge(TrainingMetrics other) {
+		if (other == null)
+			return;
+		rowsScanned += other.rowsScanned;
+		viewsCreated += other.viewsCreated;
+		splitSelectionNanos += other.splitSelectionNanos;
+		partitioningNanos += other.partitioningNanos;
+		treesTrained += other.treesTrained;
+		if (other.nodesPerDepth.length > nodesPerDepth.length) {
+			nodesPerDepth = Arrays.copyOf(nodesPerDepth, other.nodesPerDepth.length);
+		}
+		for (int d = 0; d < other.nodesPerDepth.length; d++) {
+			nodesPerDepth[d] += other.nodesPerDepth[d];
+		}
+		for (int i = 0; i < other.numBootstrapRounds; i++) {
+			bootstrapRound(other.bootstrapNanos[i]);
+			viewsCreated--; // already counted
+		}
+	}
+	
+	/**
+	 * Finishes a run that trained a single tree.
+	 */
+	public void finishTree() {
+		treesTrained++;
+		finish();
+	}
+	
+	/**
+	 * Finishes the run, i.e. sets the elapsed time.
+	 */
+	public void finish() {
+		elapsedNanos = System.nanoTime() - startNanos;
+	}
+	
+	/**
+	 * @return The number of nodes built at each depth, index 0 is the root level.
+	 */
+	public long[] nodesPerDepth() {
+		return nodesPerDepth.clone();
+	}
+	
+	/**
+	 * @return The total number of nodes built.
+	 */
+	public long nodesBuilt() {
+		long sum = 0;
+		for (long n : nodesPerDepth) {
+			sum += n;
+		}
+		return sum;
+	}
+	
+	/**
+	 * @return The time spent on the bootstrap sample of each boosting round (empty without resampling).
+	 */
+	public long[] bootstrapNanos() {
+		return Arrays.copyOf(bootstrapNanos, numBootstrapRounds);
+	}
+	
+	/**
+	 * @return The total time spent on bootstrap samples.
+	 */
+	public long totalBootstrapNanos() {
+		long sum = 0;
+		for (int i = 0; i < numBootstrapRounds; i++) {
+			sum += bootstrapNanos[i];
+		}
+		return sum;
+	}
+	
+	@Override
+	public String toString() {
+		return String.format("TrainingMetrics(trees=%d, rows=%d, views=%d, nodes=%s, split=%.1fms, partition=%.1fms, bootstrap=%.1fms, elapsed=%.1fms)",
+				treesTrained, rowsScanned, viewsCreated, Arrays.toString(nodesPerDepth), splitSelectionNanos/1e6, partitioningNanos/1e6,
+				totalBootstrapNanos()/1e6, elapsedNanos/1e6);
+	}
+
+}
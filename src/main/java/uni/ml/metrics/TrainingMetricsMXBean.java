@@ -0,0 +1,37 @@
+package uni.ml.metrics;
+
+/**
+ * The management interface of the training metrics accumulated over all runs since the last reset.
+ * @see Metrics#registerMBean()
+ * @author Julian Brummer
+ *
+ */
+public interface TrainingMetricsMXBean {
+	
+	boolean isEnabled();
+	
+	void setEnabled(boolean enabled);
+	
+	long getTreesTrained();
+	
+	long getRowsScanned();
+	
+	long getViewsCreated();
+	
+	long getNodesBuilt();
+	
+	long[] getNodesPerDepth();
+	
+	double getSplitSelectionMillis();
+	
+	double getPartitioningMillis();
+	
+	double getTrainingMillis();
+	
+	long getBootstrapRounds();
+	
+	double getBootstrapMillis();
+	
+	void reset();
+	
+}
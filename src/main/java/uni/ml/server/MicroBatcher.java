@@ -0,0 +1,219 @@
+package uni.ml.server;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.experimental.Accessors;
+import uni.ml.dataset.EnumAttribute;
+import uni.ml.dataset.Instance;
+import uni.ml.dataset.view.DatasetView;
+import uni.ml.tree.Classifier;
+
+/**
+ * Collects the instances of concurrent classification requests and classifies them together in a single batch.
+ * A batch is classified as soon as it contains at least maxBatchSize instances
+ * or the first request of the batch has been waiting for maxWait.
+ * A collector thread forms the batches and hands them to a pool of numWorkers batch workers, so batches are classified 
+ * concurrently and a large batch does not delay the following ones. While all workers are busy, 
+ * the collector waits and further requests join the next batch.
+ * @author Julian Brummer
+ *
+ */
+@Accessors(fluent=true)
+public class MicroBatcher implements Closeable {
+
+	/**
+	 * A pending classification request.
+	 */
+	@AllArgsConstructor
+	private static class Request {
+		private final List<Instance> instances;
+		private final CompletableFuture<int[]> result;
+	}
+
+	/**
+	 * A view on the instances of all requests within a batch.
+	 */
+	private static class BatchView extends DatasetView {
+
+		private final List<Instance> instances = new ArrayList<>();
+
+		@Override
+		public int numAttributes() {
+			return 0;
+		}
+
+		@Override
+		public int numInstances() {
+			return instances.size();
+		}
+
+		@Override
+		public EnumAttribute<?> attributeAt(int index) {
+			throw new IndexOutOfBoundsException();
+		}
+
+		@Override
+		public Instance instanceAt(int index) {
+			return instances.get(index);
+		}
+	}
+
+	private final Classifier classifier;
+	private final EnumAttribute<?> classAttribute;
+	@Getter
+	private final int maxBatchSize;
+	@Getter
+	private final long maxWaitNanos;
+	@Getter
+	private final int numWorkers;
+	private final BlockingQueue<Request> queue = new LinkedBlockingQueue<>();
+	private final Thread collector;
+	private final ExecutorService workers;
+	private final Semaphore idleWorkers;
+	private volatile boolean closed;
+
+	/**
+	 * Creates a batcher with a batch worker per available processor.
+	 * @see #MicroBatcher(Classifier, EnumAttribute, int, long, TimeUnit, int)
+	 */
+	public MicroBatcher(Classifier classifier, EnumAttribute<?> classAttribute, int maxBatchSize, long maxWait, TimeUnit unit) {
+		this(classifier, classAttribute, maxBatchSize, maxWait, unit, Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * Creates a batcher and starts its collector and worker threads.
+	 * @param classifier The (thread-safe) classifier to classify the batches with.
+	 * @param classAttribute The classification/target attribute.
+	 * @param maxBatchSize The number of instances that triggers the classification of a batch.
+	 * @param maxWait The maximum time a request waits for other requests to join its batch.
+	 * @param numWorkers The number of batches classified concurrently.
+	 */
+	public MicroBatcher(Classifier classifier, EnumAttribute<?> classAttribute, int maxBatchSize, long maxWait, TimeUnit unit, int numWorkers) {
+		this.classifier = classifier;
+		this.classAttribute = classAttribute;
+		this.maxBatchSize = Math.max(1, maxBatchSize);
+		this.maxWaitNanos = unit.toNanos(maxWait);
+		this.numWorkers = Math.max(1, numWorkers);
+		this.idleWorkers = new Semaphore(this.numWorkers);
+		this.workers = Executors.newFixedThreadPool(this.numWorkers, task -> {
+			Thread thread = new Thread(task, "micro-batcher-worker");
+			thread.setDaemon(true);
+			return thread;
+		});
+		this.collector = new Thread(this::run, "micro-batcher");
+		this.collector.setDaemon(true);
+		this.collector.start();
+	}
+
+	/**
+	 * Enqueues instances for classification.
+	 * @return The future predicted class ordinals, one for each instance.
+	 */
+	public CompletableFuture<int[]> submit(List<Instance> instances) {
+		CompletableFuture<int[]> result = new CompletableFuture<>();
+		if (closed) {
+			result.completeExceptionally(new IllegalStateException("The batcher has been closed"));
+		} else if (instances.isEmpty()) {
+			result.complete(new int[0]);
+		} else {
+			Request request = new Request(instances, result);
+			queue.add(request);
+			if (closed && queue.remove(request)) // closed concurrently, the worker may not see the request anymore
+				result.completeExceptionally(new IllegalStateException("The batcher has been closed"));
+		}
+		return result;
+	}
+
+	private void run() {
+		while (!closed) {
+			List<Request> batch = new ArrayList<>();
+			try {
+				idleWorkers.acquire(); // requests arriving meanwhile join the next batch
+				batch.add(queue.take());
+				int batchSize = batch.get(0).instances.size();
+				long deadline = System.nanoTime() + maxWaitNanos;
+				while (batchSize < maxBatchSize) {
+					Request request = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+					if (request == null)
+						break;
+					batch.add(request);
+					batchSize += request.instances.size();
+				}
+				workers.execute(() -> {
+					try {
+						classify(batch);
+					} finally {
+						idleWorkers.release();
+					}
+				});
+			} catch (InterruptedException e) {
+				closed = true;
+				fail(batch);
+			}
+		}
+		// fail pending requests, batches already handed to the workers are still classified
+		List<Request> pending = new ArrayList<>();
+		queue.drainTo(pending);
+		fail(pending);
+		workers.shutdown();
+	}
+	
+	private static void fail(List<Request> requests) {
+		for (Request request : requests) {
+			request.result.completeExceptionally(new IllegalStateException("The batcher has been closed"));
+		}
+	}
+
+	private void classify(List<Request> batch) {
+		BatchView view = new BatchView();
+		for (Request request : batch) {
+			view.instances.addAll(request.instances);
+		}
+
+		int[] predictions;
+		try {
+			predictions = classifier.classifyAll(view, classAttribute);
+		} catch (RuntimeException e) {
+			// classify requests separately, so that only invalid requests fail
+			if (batch.size() > 1) {
+				for (Request request : batch) {
+					List<Request> single = new ArrayList<>();
+					single.add(request);
+					classify(single);
+				}
+			} else {
+				batch.get(0).result.completeExceptionally(e);
+			}
+			return;
+		}
+
+		int offset = 0;
+		for (Request request : batch) {
+			int[] result = new int[request.instances.size()];
+			System.arraycopy(predictions, offset, result, 0, result.length);
+			offset += result.length;
+			request.result.complete(result);
+		}
+	}
+
+	/**
+	 * Stops the collector and worker threads. Requests that are not yet part of a classified batch complete exceptionally.
+	 */
+	@Override
+	public void close() {
+		closed = true;
+		collector.interrupt();
+	}
+
+}
@@ -0,0 +1,188 @@
+package uni.ml.server;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import uni.ml.dataset.Dataset;
+import uni.ml.dataset.EnumAttribute;
+import uni.ml.dataset.Instance;
+import uni.ml.learning.DecisionModel;
+import uni.ml.learning.DecisionTreeModel;
+import uni.ml.metrics.Metrics;
+
+/**
+ * A small HTTP endpoint to classify instances with a trained decision model.
+ * <p>
+ * POST /classify with a body of comma separated ARFF data lines (one instance per line, the class value may be left out).
+ * Empty lines and ARFF header/comment lines (starting with '@' or '%') are skipped.
+ * The response contains the predicted class value for each instance, one per line.
+ * A request with a missing or not allowed value is answered with status 400 and a message naming the line and attribute.
+ * <p>
+ * Each request is handled on its own (virtual, if available) thread. Concurrent requests are combined into
+ * batches by a {@link MicroBatcher} and classified together.
+ * @author Julian Brummer
+ *
+ */
+public class ScoringServer {
+
+	private final Dataset header;
+	private final EnumAttribute<?> classAttribute;
+	private final MicroBatcher batcher;
+	private HttpServer server;
+	private ExecutorService executor;
+
+	/**
+	 * Creates a scoring server for a trained model.
+	 * @param model The trained model.
+	 * @param header The dataset defining the attributes of the instances to classify.
+	 * @param classAttribute The classification/target attribute.
+	 * @param maxBatchSize The number of instances that triggers the classification of a batch.
+	 * @param maxWaitMillis The maximum time in milliseconds a request waits for other requests to join its batch.
+	 */
+	public ScoringServer(DecisionModel model, Dataset header, EnumAttribute<?> classAttribute, int maxBatchSize, long maxWaitMillis) {
+		this.header = header;
+		this.classAttribute = classAttribute;
+		this.batcher = new MicroBatcher(model.classifier(), classAttribute, maxBatchSize, maxWaitMillis, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Creates an executor starting a virtual thread per task if supported by the JVM,
+	 * otherwise a platform thread per task (reusing idle threads).
+	 */
+	private static ExecutorService threadPerRequestExecutor() {
+		try {
+			return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+		} catch (ReflectiveOperationException e) {
+			return Executors.newCachedThreadPool();
+		}
+	}
+
+	/**
+	 * Starts the server.
+	 * @param port The port to listen on (0 for any free port).
+	 * @throws IOException if the server can not be bound to the port.
+	 */
+	public void start(int port) throws IOException {
+		server = HttpServer.create(new InetSocketAddress(port), 0);
+		executor = threadPerRequestExecutor();
+		server.setExecutor(executor);
+		server.createContext("/classify", this::handle);
+		server.start();
+	}
+
+	/**
+	 * @return The port the server is listening on.
+	 */
+	public int port() {
+		return server.getAddress().getPort();
+	}
+
+	/**
+	 * Stops the server and fails all pending requests.
+	 */
+	public void stop() {
+		if (server != null) {
+			server.stop(0);
+			executor.shutdown();
+		}
+		batcher.close();
+	}
+
+	/**
+	 * Parses the instances of a request, each of which needs an allowed value for every attribute except the class attribute.
+	 * @throws IllegalArgumentException if a value is missing or not allowed, naming the line and attribute.
+	 */
+	private List<Instance> parseInstances(HttpExchange exchange) throws IOException {
+		List<Instance> instances = new ArrayList<>();
+		BufferedReader reader = new BufferedReader(new InputStreamReader(exchange.getRequestBody(), StandardCharsets.UTF_8));
+		String line;
+		int lineNumber = 0;
+		while ((line = reader.readLine()) != null) {
+			lineNumber++;
+			line = line.trim();
+			if (!line.isEmpty() && !line.startsWith("@") && !line.startsWith("%")) {
+				Instance instance = header.parseInstance(line);
+				for (EnumAttribute<?> attribute : header.attributes()) {
+					if (attribute.equals(classAttribute))
+						continue;
+					if (!instance.hasAttribute(attribute))
+						throw new IllegalArgumentException("Line " + lineNumber + ": missing value for attribute " + attribute.name());
+					if (!attribute.isAllowed(instance.value(attribute)))
+						throw new IllegalArgumentException("Line " + lineNumber + ": value " + instance.value(attribute).arffString() 
+								+ " is not allowed for attribute " + attribute.name());
+				}
+				instances.add(instance);
+			}
+		}
+		return instances;
+	}
+
+	private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+		byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+		exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+		exchange.sendResponseHeaders(status, bytes.length);
+		try (OutputStream out = exchange.getResponseBody()) {
+			out.write(bytes);
+		}
+	}
+
+	private void handle(HttpExchange exchange) throws IOException {
+		try {
+			if (!"POST".equals(exchange.getRequestMethod())) {
+				respond(exchange, 405, "Use POST\n");
+				return;
+			}
+			int[] predictions = batcher.submit(parseInstances(exchange)).get();
+			StringBuilder b = new StringBuilder();
+			for (int ordinal : predictions) {
+				b.append(ordinal < 0? "?" : classAttribute.value(ordinal).arffString()).append("\n");
+			}
+			respond(exchange, 200, b.toString());
+		} catch (IllegalArgumentException e) {
+			respond(exchange, 400, e.getMessage() + "\n");
+		} catch (ExecutionException e) {
+			respond(exchange, 500, "Classification failed\n");
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			respond(exchange, 503, "Interrupted\n");
+		} finally {
+			exchange.close();
+		}
+	}
+
+	/**
+	 * Trains a decision tree on an ARFF file and serves it.
+	 * The training metrics are exposed as an MBean (enabled with -Duni.ml.metrics=true or via JMX).
+	 * Arguments: [path_to_arff_file] [maxDepth] [port] [maxBatchSize (optional)] [maxWaitMillis (optional)]
+	 */
+	public static void main(String[] args) throws IOException {
+		Metrics.registerMBean();
+		Dataset dataset = new Dataset();
+		dataset.loadFromFile(new File(args[0]));
+		int maxDepth = Integer.parseInt(args[1]);
+		int port = Integer.parseInt(args[2]);
+		int maxBatchSize = args.length >= 4? Integer.parseInt(args[3]) : 1024;
+		long maxWaitMillis = args.length >= 5? Long.parseLong(args[4]) : 2;
+
+		DecisionTreeModel model = new DecisionTreeModel(maxDepth);
+		model.trainModel(dataset, dataset.lastAttribute());
+		ScoringServer server = new ScoringServer(model, dataset, dataset.lastAttribute(), maxBatchSize, maxWaitMillis);
+		server.start(port);
+		System.out.println("Serving " + dataset.name() + " on port " + server.port());
+	}
+
+}
@@ -0,0 +1,42 @@
+package uni.ml.tree;
+
+import java.util.concurrent.RecursiveAction;
+
+import lombok.AllArgsConstructor;
+import uni.ml.dataset.EnumAttribute;
+import uni.ml.dataset.view.DatasetView;
+
+/**
+ * Classifies a range of instances by recursively splitting it into halves,
+ * until the ranges are small enough to be classified sequentially.
+ * @author Julian Brummer
+ *
+ */
+@AllArgsConstructor
+class ClassificationTask extends RecursiveAction {
+
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * Ranges with fewer instances are classified sequentially.
+	 */
+	static final int SEQUENTIAL_THRESHOLD = 4096;
+
+	private final Classifier classifier;
+	private final DatasetView dataset;
+	private final EnumAttribute<?> classAttribute;
+	private final int from, to;
+	private final int[] predictions;
+
+	@Override
+	protected void compute() {
+		if (to - from <= SEQUENTIAL_THRESHOLD) {
+			classifier.classifyRange(dataset, classAttribute, from, to, predictions);
+		} else {
+			int mid = (from + to) >>> 1;
+			invokeAll(new ClassificationTask(classifier, dataset, classAttribute, from, mid, predictions),
+					  new ClassificationTask(classifier, dataset, classAttribute, mid, to, predictions));
+		}
+	}
+
+}
@@ -1,11 +1,16 @@
 package uni.ml.tree;
 
+import java.util.concurrent.ForkJoinPool;
+
 import uni.ml.dataset.EnumAttribute;
 import uni.ml.dataset.Instance;
 import uni.ml.dataset.Value;
+import uni.ml.dataset.view.DatasetView;
 
 /**
- * Provides an interface for decision model classification. 
+ * Provides an interface for decision model classification.
+ * Implementations must not keep any per-call state, i.e. they have to be stateless and thread-safe.
+ * A single classifier can therefore be shared by any number of threads, as long as the underlying model is not retrained concurrently.
  * @author Julian Brummer
  *
  */
@@ -17,11 +22,56 @@ public interface Classifier {
 	 * @return The value predicted by this classifier.
 	 */
 	public Value<?> classify(Instance instance, EnumAttribute<?> classAttribute);
-	
+
+	/**
+	 * Classifies an instance with this classifier.
+	 * @param classAttribute The target/classification attribute.
+	 * @return The ordinal of the predicted value within the classAttribute or -1 if the prediction is not a valid class value.
+	 */
+	default int classifyOrdinal(Instance instance, EnumAttribute<?> classAttribute) {
+		return classAttribute.indexOf(classify(instance, classAttribute));
+	}
+
 	/**
 	 * Tests whether the value predicted by this classifier is equal to the value of the test instance.
 	 */
 	default boolean test(Instance instance, EnumAttribute<?> classAttribute) {
 		return instance.value(classAttribute).equals(classify(instance, classAttribute));
 	}
+
+	/**
+	 * Classifies the instances [from,to) of a dataset(-view).
+	 * @param classAttribute The target/classification attribute.
+	 * @param predictions Receives the predicted class ordinals, the ordinal of instance i is stored at predictions[i].
+	 * @see #classifyOrdinal(Instance, EnumAttribute)
+	 */
+	default void classifyRange(DatasetView dataset, EnumAttribute<?> classAttribute, int from, int to, int[] predictions) {
+		for (int i = from; i < to; i++) {
+			predictions[i] = classifyOrdinal(dataset.instanceAt(i), classAttribute);
+		}
+	}
+
+	/**
+	 * Classifies all instances of a dataset(-view).
+	 * @param classAttribute The target/classification attribute.
+	 * @return The predicted class ordinal for each instance.
+	 */
+	default int[] classifyAll(DatasetView dataset, EnumAttribute<?> classAttribute) {
+		int[] predictions = new int[dataset.numInstances()];
+		classifyRange(dataset, classAttribute, 0, predictions.length, predictions);
+		return predictions;
+	}
+
+	/**
+	 * Classifies all instances of a dataset(-view) in parallel.
+	 * The instances are split into ranges, which are classified by the workers of the specified pool.
+	 * @param classAttribute The target/classification attribute.
+	 * @param pool The pool to execute the classification on.
+	 * @return The predicted class ordinal for each instance.
+	 */
+	default int[] classifyAll(DatasetView dataset, EnumAttribute<?> classAttribute, ForkJoinPool pool) {
+		int[] predictions = new int[dataset.numInstances()];
+		pool.invoke(new ClassificationTask(this, dataset, classAttribute, 0, predictions.length, predictions));
+		return predictions;
+	}
 }
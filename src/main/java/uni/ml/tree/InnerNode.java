@@ -28,6 +28,12 @@ public class InnerNode extends Node implements Iterable<Node> {
 	@Getter @Setter
 	private EnumAttribute<?> decisionAttribute;
 	private Map<Value<?>, Node> children = new HashMap<>();
+	/**
+	 * The most common value of the target attribute among the training instances of this node,
+	 * i.e. the value a leaf would predict instead of this node (e.g. when truncating the tree).
+	 */
+	@Getter @Setter
+	private Value<?> majorityValue;
 	
 	/**
 	 * Adds a new child to the node.
@@ -0,0 +1,242 @@
+package uni.ml.tree;
+
+import java.nio.IntBuffer;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import lombok.Getter;
+import lombok.experimental.Accessors;
+import uni.ml.dataset.EnumAttribute;
+import uni.ml.dataset.Instance;
+import uni.ml.dataset.Value;
+
+/**
+ * A flat encoding of one or more decision trees within a single int buffer.
+ * Nodes are referenced by pointers:
+ * <ul>
+ * <li>A pointer p &gt;= 0 references an inner node stored at nodes[p..p+k],
+ *     where nodes[p] is the index of the decision attribute within the attribute dictionary
+ *     and nodes[p+1+j] is the pointer to the child for the j-th value of the decision attribute (k values).</li>
+ * <li>A pointer p &lt; 0 references a leaf predicting the class value with ordinal -1-p.</li>
+ * </ul>
+ * Classification only reads the buffer, so the buffer may as well be backed by a memory-mapped file.
+ * Pointers may be shared, i.e. identical subtrees are stored only once (see {@link Builder}).
+ * @author Julian Brummer
+ *
+ */
+@Accessors(fluent=true)
+public class NodeArray {
+
+	@Getter
+	private final EnumAttribute<?>[] attributes;
+	private final IntBuffer nodes;
+
+	/**
+	 * Creates a node array from an encoded buffer.
+	 * @param attributes The attribute dictionary, inner nodes reference their decision attribute by index.
+	 * @param nodes The encoded nodes.
+	 */
+	public NodeArray(EnumAttribute<?>[] attributes, IntBuffer nodes) {
+		this.attributes = attributes;
+		this.nodes = nodes;
+	}
+
+	/**
+	 * @return The length of the node buffer.
+	 */
+	public int size() {
+		return nodes.limit();
+	}
+
+	/**
+	 * @return The int at the specified position of the node buffer.
+	 */
+	public int get(int index) {
+		return nodes.get(index);
+	}
+
+	/**
+	 * @return Whether the pointer references a leaf.
+	 */
+	public static boolean isLeaf(int pointer) {
+		return pointer < 0;
+	}
+
+	/**
+	 * Encodes a class value ordinal as a leaf pointer and vice versa.
+	 */
+	public static int leaf(int ordinal) {
+		return -1-ordinal;
+	}
+
+	/**
+	 * Descends from the specified (sub-)tree to the leaf the instance belongs to.
+	 * @param root The pointer to the root of the tree.
+	 * @return The class value ordinal predicted by the tree.
+	 * @throws IllegalArgumentException if the instance has a value not allowed for a decision attribute.
+	 */
+	public int classifyOrdinal(int root, Instance instance) {
+		int p = root;
+		while (p >= 0) {
+			EnumAttribute<?> attribute = attributes[nodes.get(p)];
+			int ordinal = attribute.indexOf(instance.value(attribute));
+			if (ordinal < 0)
+				throw new IllegalArgumentException("Value " + instance.value(attribute) + " is not allowed for " + attribute);
+			p = nodes.get(p+1+ordinal);
+		}
+		return leaf(p);
+	}
+
+	/**
+	 * Returns a classifier for a single tree within the node array.
+	 * @param root The pointer to the root of the tree.
+	 * @param classAttribute The classification/target attribute, whose values are stored within the leaves.
+	 */
+	public Classifier classifier(int root, EnumAttribute<?> classAttribute) {
+		return new Classifier() {
+			
+			@Override
+			public int classifyOrdinal(Instance instance, EnumAttribute<?> ignored) {
+				return NodeArray.this.classifyOrdinal(root, instance);
+			}
+			
+			@Override
+			public Value<?> classify(Instance instance, EnumAttribute<?> ignored) {
+				return classAttribute.value(NodeArray.this.classifyOrdinal(root, instance));
+			}
+		};
+	}
+
+	/**
+	 * The encoding of an inner node, used to find identical subtrees.
+	 */
+	private static class NodeKey {
+		private final int[] content;
+		private final int hash;
+		
+		public NodeKey(int[] content) {
+			this.content = content;
+			this.hash = Arrays.hashCode(content);
+		}
+		
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+		
+		@Override
+		public boolean equals(Object obj) {
+			return obj instanceof NodeKey && Arrays.equals(content, ((NodeKey) obj).content);
+		}
+	}
+
+	/**
+	 * Encodes decision trees as a {@link NodeArray}.
+	 * Identical subtrees (within a tree and across all trees added to the builder) are stored only once,
+	 * so the encoded trees form a directed acyclic graph of shared nodes.
+	 * Since children are encoded before their parents, a subtree is identical to an already encoded one
+	 * if its decision attribute and its child pointers are identical.
+	 * @author Julian Brummer
+	 *
+	 */
+	public static class Builder implements NodeVisitor {
+
+		private final EnumAttribute<?>[] attributes;
+		private final Map<EnumAttribute<?>, Integer> attributeIndices = new HashMap<>();
+		private final EnumAttribute<?> classAttribute;
+		private final Map<NodeKey, Integer> encodedNodes = new HashMap<>();
+		private int[] nodes = new int[64];
+		private int size;
+		private int pointer;
+		private int numNodes;
+
+		/**
+		 * @param attributes The attribute dictionary, must contain all decision attributes of the trees to encode.
+		 * @param classAttribute The classification/target attribute, whose values are stored within the leaves.
+		 */
+		public Builder(List<EnumAttribute<?>> attributes, EnumAttribute<?> classAttribute) {
+			this.attributes = attributes.toArray(new EnumAttribute<?>[attributes.size()]);
+			this.classAttribute = classAttribute;
+			for (int i = 0; i < this.attributes.length; i++) {
+				attributeIndices.put(this.attributes[i], i);
+			}
+		}
+
+		/**
+		 * Appends the encoding of an inner node, unless an identical node has already been encoded.
+		 * @return The pointer to the (shared) node.
+		 */
+		private int encode(int[] content) {
+			NodeKey key = new NodeKey(content);
+			Integer p = encodedNodes.get(key);
+			if (p != null)
+				return p;
+			
+			if (size + content.length > nodes.length) {
+				nodes = Arrays.copyOf(nodes, Math.max(2*nodes.length, size + content.length));
+			}
+			System.arraycopy(content, 0, nodes, size, content.length);
+			encodedNodes.put(key, size);
+			size += content.length;
+			return size - content.length;
+		}
+
+		@Override
+		public void visit(InnerNode node) {
+			numNodes++;
+			EnumAttribute<?> attribute = node.decisionAttribute();
+			Integer attributeIndex = attributeIndices.get(attribute);
+			if (attributeIndex == null)
+				throw new IllegalArgumentException("Attribute " + attribute + " is not part of the dictionary");
+
+			int[] content = new int[1 + attribute.numValues()];
+			content[0] = attributeIndex;
+			for (int j = 0; j < attribute.numValues(); j++) {
+				node.child(attribute.value(j)).accept(this);
+				content[1+j] = pointer;
+			}
+			pointer = encode(content);
+		}
+
+		@Override
+		public void visit(Leaf node) {
+			numNodes++;
+			int ordinal = classAttribute.indexOf(node.value());
+			if (ordinal < 0)
+				throw new IllegalArgumentException("Value " + node.value() + " is not allowed for " + classAttribute);
+			pointer = leaf(ordinal);
+		}
+
+		/**
+		 * Appends a (sub-)tree to the node array.
+		 * @return The pointer to the root of the tree.
+		 */
+		public int add(Node root) {
+			root.accept(this);
+			return pointer;
+		}
+		
+		/**
+		 * @return The number of nodes (inner nodes and leaves) of all trees added so far.
+		 */
+		public int numNodes() {
+			return numNodes;
+		}
+		
+		/**
+		 * @return The number of distinct inner nodes encoded so far.
+		 */
+		public int numDistinctNodes() {
+			return encodedNodes.size();
+		}
+
+		/**
+		 * @return The node array containing all trees added so far.
+		 */
+		public NodeArray build() {
+			return new NodeArray(attributes, IntBuffer.wrap(Arrays.copyOf(nodes, size)));
+		}
+	}
+}
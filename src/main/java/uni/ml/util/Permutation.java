@@ -0,0 +1,84 @@
+package uni.ml.util;
+
+import java.util.SplittableRandom;
+
+import lombok.Getter;
+import lombok.experimental.Accessors;
+
+/**
+ * A pseudo-random permutation of the indices [0,size), computed on the fly in constant memory.
+ * The permutation is a balanced Feistel network on the smallest domain of 2^(2h) indices containing [0,size);
+ * indices mapped outside [0,size) are mapped again (cycle walking) until they fall into [0,size), which keeps the mapping bijective.
+ * The same size and seed always yield the same permutation.
+ * @author Julian Brummer
+ *
+ */
+@Accessors(fluent=true)
+public class Permutation {
+
+	private static final int ROUNDS = 4;
+	
+	@Getter
+	private final int size;
+	private final int halfBits;
+	private final int halfMask;
+	private final long[] keys = new long[ROUNDS];
+	
+	/**
+	 * Creates a pseudo-random permutation.
+	 * @param size The number of indices to permute.
+	 * @param seed The seed the round keys are derived from.
+	 */
+	public Permutation(int size, long seed) {
+		if (size < 0)
+			throw new IllegalArgumentException("Negative size " + size);
+		this.size = size;
+		int bits = 32 - Integer.numberOfLeadingZeros(Math.max(size-1, 1));
+		this.halfBits = (bits + 1) / 2;
+		this.halfMask = (1 << halfBits) - 1;
+		SplittableRandom random = new SplittableRandom(seed);
+		for (int r = 0; r < ROUNDS; r++) {
+			keys[r] = random.nextLong();
+		}
+	}
+	
+	/**
+	 * The round function of the Feistel network (a 64-bit mix of the half and the round key).
+	 */
+	private int round(int half, long key) {
+		long z = half + key;
+		z = (z ^ (z >>> 33)) * 0xff51afd7ed558ccdL;
+		z = (z ^ (z >>> 33)) * 0xc4ceb9fe1a85ec53L;
+		return (int) (z ^ (z >>> 33)) & halfMask;
+	}
+	
+	/**
+	 * Maps an index of the domain [0,2^(2h)) bijectively to another one.
+	 * The domain exceeds the int range for sizes above 2^30, so indices of the domain are longs.
+	 */
+	private long encrypt(long index) {
+		int left = (int) (index >>> halfBits);
+		int right = (int) index & halfMask;
+		for (int r = 0; r < ROUNDS; r++) {
+			int tmp = right;
+			right = left ^ round(right, keys[r]);
+			left = tmp;
+		}
+		return ((long) left << halfBits) | right;
+	}
+	
+	/**
+	 * @return The permuted index of the specified index.
+	 * @throws IndexOutOfBoundsException if the index is not within [0,size).
+	 */
+	public int index(int index) {
+		if (index < 0 || index >= size)
+			throw new IndexOutOfBoundsException("Index " + index + " is not within [0," + size + ")");
+		long permuted = encrypt(index);
+		while (permuted >= size) { // cycle walking, terminates since the cycle of index contains index itself
+			permuted = encrypt(permuted);
+		}
+		return (int) permuted;
+	}
+	
+}
@@ -0,0 +1,39 @@
+package uni.ml.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Runs independent tasks on an executor.
+ * @author Julian Brummer
+ *
+ */
+public class Tasks {
+	
+	/**
+	 * Runs all tasks on the executor and waits for them to complete.
+	 * @param description Describes the tasks within exception messages, e.g. "cross validation".
+	 * @return The results in the order of the tasks, independent of the scheduling.
+	 * @throws IllegalStateException if a task fails (with the exception of the task as cause) 
+	 * or the calling thread is interrupted (the interrupt flag is restored).
+	 */
+	public static <T> List<T> invokeAllOrdered(ExecutorService executor, List<? extends Callable<T>> tasks, String description) {
+		List<T> results = new ArrayList<>();
+		try {
+			for (Future<T> result : executor.invokeAll(tasks)) {
+				results.add(result.get());
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted during " + description, e);
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("A task of " + description + " failed", e.getCause());
+		}
+		return results;
+	}
+
+}